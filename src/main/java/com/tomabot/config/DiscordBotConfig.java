@@ -2,6 +2,7 @@ package com.tomabot.config;
 
 import com.tomabot.discord.listener.CommandAutocompleteListener;
 import com.tomabot.discord.listener.CommandListener;
+import com.tomabot.discord.listener.GuildMemberListener;
 import com.tomabot.discord.listener.ReadyListener;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +31,7 @@ public class DiscordBotConfig {
     private final CommandListener commandListener;
     private final ReadyListener readyListener;
     private final CommandAutocompleteListener commandAutocompleteListener;
+    private final GuildMemberListener guildMemberListener;
 
     @Bean
     public JDA jda() throws Exception {
@@ -47,7 +49,7 @@ public class DiscordBotConfig {
                 )
                 .setMemberCachePolicy(MemberCachePolicy.ALL)
                 .setChunkingFilter(ChunkingFilter.ALL)
-                .addEventListeners(commandListener, readyListener, commandAutocompleteListener)
+                .addEventListeners(commandListener, readyListener, commandAutocompleteListener, guildMemberListener)
                 .build();
 
         jda.awaitReady();
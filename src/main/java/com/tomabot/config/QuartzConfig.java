@@ -1,6 +1,7 @@
 package com.tomabot.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,6 +15,9 @@ public class QuartzConfig {
     private final AutowiringSpringBeanJobFactory jobFactory;
     private final DataSource dataSource;
 
+    @Value("${tomabot.scheduler.backend:wheel}")
+    private String schedulerBackend;
+
     @Bean
     public SchedulerFactoryBeanCustomizer schedulerFactoryBeanCustomizer() {
         return factory -> {
@@ -21,6 +25,8 @@ public class QuartzConfig {
             factory.setJobFactory(jobFactory);
             factory.setOverwriteExistingJobs(true);
             factory.setWaitForJobsToCompleteOnShutdown(true);
+            // Only run Quartz (and its cluster check-in) when it backs session completions
+            factory.setAutoStartup("quartz".equalsIgnoreCase(schedulerBackend));
         };
     }
 
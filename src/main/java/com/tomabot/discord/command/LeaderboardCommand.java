@@ -2,6 +2,7 @@ package com.tomabot.discord.command;
 
 import com.tomabot.model.dto.LeaderboardEntryDTO;
 import com.tomabot.model.entity.User;
+import com.tomabot.model.enums.LeaderboardPeriod;
 import com.tomabot.model.enums.LeaderboardScope;
 import com.tomabot.model.enums.LeaderboardType;
 import com.tomabot.service.LeaderboardService;
@@ -39,6 +40,8 @@ public class LeaderboardCommand implements SlashCommand {
                 .addOption(OptionType.STRING, "type", "Leaderboard type", false,
                         true) // autocomplete
                 .addOption(OptionType.STRING, "scope", "Global or Server", false,
+                        true) // autocomplete
+                .addOption(OptionType.STRING, "period", "All time, this week or this month", false,
                         true); // autocomplete
     }
 
@@ -55,31 +58,42 @@ public class LeaderboardCommand implements SlashCommand {
         String scopeStr = event.getOption("scope") != null
                 ? event.getOption("scope").getAsString()
                 : "global";
+        String periodStr = event.getOption("period") != null
+                ? event.getOption("period").getAsString()
+                : "all_time";
 
         LeaderboardType type = LeaderboardType.fromString(typeStr);
         LeaderboardScope scope = LeaderboardScope.fromString(scopeStr);
+        LeaderboardPeriod period = LeaderboardPeriod.fromString(periodStr);
+
+        if (!period.supports(type)) {
+            event.getHook().sendMessage(String.format(
+                    "📅 %s rankings are only available for Sessions and Focus Time. Try `/leaderboard type:sessions period:%s`!",
+                    period.getDisplayName(), period.getKey())).queue();
+            return;
+        }
 
         String guildId = event.getGuild() != null ? event.getGuild().getId() : null;
 
         try {
             // Get top entries
             List<LeaderboardEntryDTO> topEntries = leaderboardService.getTopLeaderboard(
-                    type, scope, guildId, DISPLAY_LIMIT);
+                    type, period, scope, guildId, DISPLAY_LIMIT);
 
             // Get user's rank if exists
             LeaderboardEntryDTO userRank = user != null
-                    ? leaderboardService.getUserRank(type, scope, guildId, discordId)
+                    ? leaderboardService.getUserRank(type, period, scope, guildId, discordId)
                     : null;
 
             // Get total size
-            Long totalUsers = leaderboardService.getLeaderboardSize(type, scope, guildId);
+            Long totalUsers = leaderboardService.getLeaderboardSize(type, period, scope, guildId);
 
             EmbedBuilder embed = buildLeaderboardEmbed(
-                    type, scope, topEntries, userRank, totalUsers);
+                    type, period, scope, topEntries, userRank, totalUsers);
 
             event.getHook().sendMessageEmbeds(embed.build()).queue();
 
-            log.info("Displayed {} {} leaderboard", scope.getKey(), type.getKey());
+            log.info("Displayed {} {} {} leaderboard", scope.getKey(), type.getKey(), period.getKey());
 
         } catch (Exception e) {
             log.error("Error displaying leaderboard", e);
@@ -88,15 +102,17 @@ public class LeaderboardCommand implements SlashCommand {
     }
 
     private EmbedBuilder buildLeaderboardEmbed(LeaderboardType type,
+                                               LeaderboardPeriod period,
                                                LeaderboardScope scope,
                                                List<LeaderboardEntryDTO> entries,
                                                LeaderboardEntryDTO userRank,
                                                Long totalUsers) {
         EmbedBuilder embed = new EmbedBuilder()
                 .setColor(getColorForType(type))
-                .setTitle(String.format("%s %s Leaderboard",
+                .setTitle(String.format("%s %s Leaderboard%s",
                         scope.getDisplayName(),
-                        type.getFullName()))
+                        type.getFullName(),
+                        period.isWindowed() ? " · " + period.getDisplayName() : ""))
                 .setDescription(String.format("""
                         **%s**
                         
@@ -142,6 +158,7 @@ public class LeaderboardCommand implements SlashCommand {
         embed.addField("💡 Tips",
                 "• Use `/leaderboard type:xp` for other rankings\n" +
                         "• Use `/leaderboard scope:server` for server-only rankings\n" +
+                        "• Use `/leaderboard type:focus_time period:week` for this week's rankings\n" +
                         "• Complete more sessions to climb the ranks!",
                 false);
 
@@ -1,8 +1,6 @@
 package com.tomabot.discord.command;
 
-import com.tomabot.model.entity.User;
 import com.tomabot.service.PomodoroService;
-import com.tomabot.service.UserService;
 import com.tomabot.model.dto.SessionStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,7 +16,6 @@ import java.awt.Color;
 @Slf4j
 public class StatusCommand implements SlashCommand {
 
-    private final UserService userService;
     private final PomodoroService pomodoroService;
 
     @Override
@@ -36,14 +33,8 @@ public class StatusCommand implements SlashCommand {
         event.deferReply(true).queue();
 
         String discordId = event.getUser().getId();
-        User user = userService.findByDiscordId(discordId);
 
-        if (user == null) {
-            event.getHook().sendMessage("❌ You don't have an active session!").queue();
-            return;
-        }
-
-        SessionStatus status = pomodoroService.getSessionStatus(user);
+        SessionStatus status = pomodoroService.getSessionStatus(discordId);
 
         if (status == null) {
             event.getHook().sendMessage("ℹ️ No active session. Start one with `/start`!").queue();
@@ -116,6 +116,20 @@ public class CommandAutocompleteListener extends ListenerAdapter {
                     .limit(25)
                     .toList();
 
+            event.replyChoices(choices).queue();
+        } else if ("period".equals(focusedOption)) {
+            List<Command.Choice> choices = Stream.of(
+                            new Command.Choice("♾️ All Time", "all_time"),
+                            new Command.Choice("📅 This Week", "week"),
+                            new Command.Choice("🗓️ This Month", "month"),
+                            new Command.Choice("⏮️ Last Week", "last_week"),
+                            new Command.Choice("⏮️ Last Month", "last_month")
+                    )
+                    .filter(choice -> choice.getName().toLowerCase().contains(userInput) ||
+                            choice.getAsString().toLowerCase().contains(userInput))
+                    .limit(25)
+                    .toList();
+
             event.replyChoices(choices).queue();
         }
     }
@@ -0,0 +1,61 @@
+package com.tomabot.discord.listener;
+
+import com.tomabot.service.GuildMemberService;
+import lombok.RequiredArgsConstructor;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the per-guild member sets behind server leaderboards in step with Discord:
+ * a full sync when a guild becomes available, then join and leave events
+ */
+@Component
+@RequiredArgsConstructor
+public class GuildMemberListener extends ListenerAdapter {
+
+    private final GuildMemberService guildMemberService;
+
+    @Override
+    public void onGuildReady(GuildReadyEvent event) {
+        syncMembers(event.getGuild());
+    }
+
+    @Override
+    public void onGuildJoin(GuildJoinEvent event) {
+        syncMembers(event.getGuild());
+    }
+
+    @Override
+    public void onGuildLeave(GuildLeaveEvent event) {
+        guildMemberService.removeGuild(event.getGuild().getId());
+    }
+
+    @Override
+    public void onGuildMemberJoin(GuildMemberJoinEvent event) {
+        if (!event.getUser().isBot()) {
+            guildMemberService.addMember(event.getGuild().getId(), event.getUser().getId());
+        }
+    }
+
+    @Override
+    public void onGuildMemberRemove(GuildMemberRemoveEvent event) {
+        guildMemberService.removeMember(event.getGuild().getId(), event.getUser().getId());
+    }
+
+    /**
+     * Members come from JDA's member cache, which is fully chunked before a guild is ready
+     */
+    private void syncMembers(Guild guild) {
+        guildMemberService.replaceMembers(guild.getId(), guild.getMemberCache().stream()
+                .filter(member -> !member.getUser().isBot())
+                .map(Member::getId)
+                .toList());
+    }
+}
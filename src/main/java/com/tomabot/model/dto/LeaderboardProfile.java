@@ -0,0 +1,16 @@
+package com.tomabot.model.dto;
+
+/**
+ * The user fields a leaderboard entry shows, read in one projection query
+ */
+public record LeaderboardProfile(
+        String discordId,
+        String username,
+        Integer level,
+        Integer totalXp,
+        Integer sessions,
+        Integer focusMinutes,
+        Integer streak,
+        Integer tasks,
+        Integer achievements
+) {}
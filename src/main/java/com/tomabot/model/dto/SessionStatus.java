@@ -1,5 +1,6 @@
 package com.tomabot.model.dto;
 
+import com.tomabot.model.enums.SessionType;
 import lombok.Builder;
 import lombok.Data;
 import java.time.Instant;
@@ -8,6 +9,7 @@ import java.time.Instant;
 @Builder
 public class SessionStatus {
     private Long sessionId;
+    private SessionType sessionType;
     private Integer totalMinutes;
     private Integer elapsedMinutes;
     private Integer remainingMinutes;
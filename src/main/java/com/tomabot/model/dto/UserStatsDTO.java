@@ -11,7 +11,7 @@ import java.util.Map;
  * DTO for user statistics across different time periods
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserStatsDTO {
@@ -44,6 +44,10 @@ public class UserStatsDTO {
     // Trends
     private Double trendPercentage; // vs previous period
     private Boolean isImproving;
+    private Integer previousPeriodFocusMinutes;
+
+    // Days the average is taken over (period length, or days since first session)
+    private Integer dayCount;
 
     // Breakdown by day (for week/month views)
     private int[] dailyBreakdown; // sessions per day
@@ -2,7 +2,10 @@ package com.tomabot.model.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.time.DateTimeException;
 import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 
 @Entity
 @Table(name = "users")
@@ -66,4 +69,23 @@ public class User {
         if (premiumExpiresAt == null) return true;
         return premiumExpiresAt.isAfter(Instant.now());
     }
-}
\ No newline at end of file
+
+    /**
+     * The user's timezone, UTC when unset or not a valid zone id
+     */
+    public ZoneId getZoneId() {
+        return zoneOf(timezone);
+    }
+
+    /**
+     * Zone of a stored timezone value, UTC when unset or not a valid zone id
+     */
+    public static ZoneId zoneOf(String timezone) {
+        if (timezone == null) return ZoneOffset.UTC;
+        try {
+            return ZoneId.of(timezone);
+        } catch (DateTimeException e) {
+            return ZoneOffset.UTC;
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.tomabot.model.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.Instant;
 
 /**
@@ -10,6 +13,7 @@ import java.time.Instant;
  */
 @Entity
 @Table(name = "user_stats")
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -54,6 +58,12 @@ public class UserStats {
     @Column(name = "last_session_date")
     private Instant lastSessionDate;
 
+    // Completed sessions by hour of day (0-23) in the user's timezone
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "hour_histogram", nullable = false)
+    @Builder.Default
+    private int[] hourHistogram = new int[24];
+
     // Level & XP (Phase 2)
     @Column(name = "level")
     @Builder.Default
@@ -120,6 +130,24 @@ public class UserStats {
         this.totalTasksCompleted++;
     }
 
+    /**
+     * Count a completed session started at the given hour of day
+     */
+    public void recordSessionHour(int hour) {
+        this.hourHistogram[hour]++;
+    }
+
+    /**
+     * Completed sessions started from hour {@code fromHour} (inclusive) to {@code toHour} (exclusive)
+     */
+    public int countSessionsBetweenHours(int fromHour, int toHour) {
+        int count = 0;
+        for (int hour = fromHour; hour < toHour; hour++) {
+            count += hourHistogram[hour];
+        }
+        return count;
+    }
+
     /**
      * Update streak
      */
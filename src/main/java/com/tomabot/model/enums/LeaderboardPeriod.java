@@ -0,0 +1,103 @@
+package com.tomabot.model.enums;
+
+import lombok.Getter;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.util.List;
+
+/**
+ * Time window of a leaderboard. Windows are UTC calendar weeks (ISO, from Monday) and months;
+ * the previous window of each is kept as an archive until the current one closes.
+ */
+@Getter
+public enum LeaderboardPeriod {
+    ALL_TIME("all_time", "All Time", null, 0),
+    THIS_WEEK("week", "This Week", ChronoUnit.WEEKS, 0),
+    LAST_WEEK("last_week", "Last Week", ChronoUnit.WEEKS, -1),
+    THIS_MONTH("month", "This Month", ChronoUnit.MONTHS, 0),
+    LAST_MONTH("last_month", "Last Month", ChronoUnit.MONTHS, -1);
+
+    private final String key;
+    private final String displayName;
+    private final ChronoUnit window;
+    private final int offset;
+
+    LeaderboardPeriod(String key, String displayName, ChronoUnit window, int offset) {
+        this.key = key;
+        this.displayName = displayName;
+        this.window = window;
+        this.offset = offset;
+    }
+
+    /**
+     * Periods that are incremented as sessions complete
+     */
+    public static List<LeaderboardPeriod> live() {
+        return List.of(THIS_WEEK, THIS_MONTH);
+    }
+
+    public boolean isWindowed() {
+        return window != null;
+    }
+
+    /**
+     * Windowed boards only track what accumulates per completion
+     */
+    public boolean supports(LeaderboardType type) {
+        return !isWindowed() || type == LeaderboardType.SESSIONS || type == LeaderboardType.FOCUS_TIME;
+    }
+
+    /**
+     * First day of this period's window, as seen at the given instant
+     */
+    public LocalDate windowStart(Instant at) {
+        LocalDate today = LocalDate.ofInstant(at, ZoneOffset.UTC);
+        LocalDate start = window == ChronoUnit.WEEKS
+                ? today.with(DayOfWeek.MONDAY)
+                : today.withDayOfMonth(1);
+        return start.plus(offset, window);
+    }
+
+    /**
+     * When this period's board, as seen at the given instant, may be dropped:
+     * once the window after it has closed too
+     */
+    public Instant expiresAt(Instant at) {
+        return windowStart(at).plus(2, window).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    /**
+     * Get Redis key suffix for this period, e.g. {@code :week:2026-W42} or {@code :month:2026-10}.
+     * Empty for all-time boards.
+     */
+    public String getRedisKeySuffix(Instant at) {
+        if (!isWindowed()) {
+            return "";
+        }
+        LocalDate start = windowStart(at);
+        return window == ChronoUnit.WEEKS
+                ? String.format(":week:%d-W%02d",
+                        start.get(IsoFields.WEEK_BASED_YEAR), start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR))
+                : ":month:" + YearMonth.from(start);
+    }
+
+    /**
+     * Parse from string
+     */
+    public static LeaderboardPeriod fromString(String period) {
+        if (period == null) return ALL_TIME;
+
+        for (LeaderboardPeriod p : values()) {
+            if (p.key.equalsIgnoreCase(period) || p.name().equalsIgnoreCase(period)) {
+                return p;
+            }
+        }
+        return ALL_TIME;
+    }
+}
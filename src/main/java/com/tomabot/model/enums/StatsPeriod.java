@@ -1,10 +1,12 @@
 package com.tomabot.model.enums;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 
 /**
- * Time periods for statistics aggregation
+ * Time periods for statistics aggregation. Days are calendar days in the user's timezone,
+ * matching how daily_stats rows are keyed.
  */
 public enum StatsPeriod {
     TODAY,
@@ -15,8 +17,8 @@ public enum StatsPeriod {
     /**
      * Get start date for this period
      */
-    public LocalDate getStartDate() {
-        LocalDate now = LocalDate.now();
+    public LocalDate getStartDate(ZoneId zone) {
+        LocalDate now = LocalDate.now(zone);
         return switch (this) {
             case TODAY -> now;
             case WEEK -> now.minusDays(6); // Last 7 days including today
@@ -28,31 +30,31 @@ public enum StatsPeriod {
     /**
      * Get end date for this period (always today)
      */
-    public LocalDate getEndDate() {
-        return LocalDate.now();
+    public LocalDate getEndDate(ZoneId zone) {
+        return LocalDate.now(zone);
     }
 
     /**
      * Get number of days in this period
      */
-    public long getDayCount() {
-        return ChronoUnit.DAYS.between(getStartDate(), getEndDate()) + 1;
+    public long getDayCount(ZoneId zone) {
+        return ChronoUnit.DAYS.between(getStartDate(zone), getEndDate(zone)) + 1;
     }
 
     /**
      * Get previous period start date (for trend calculation)
      */
-    public LocalDate getPreviousPeriodStart() {
-        LocalDate start = getStartDate();
-        long days = getDayCount();
+    public LocalDate getPreviousPeriodStart(ZoneId zone) {
+        LocalDate start = getStartDate(zone);
+        long days = getDayCount(zone);
         return start.minusDays(days);
     }
 
     /**
      * Get previous period end date
      */
-    public LocalDate getPreviousPeriodEnd() {
-        return getStartDate().minusDays(1);
+    public LocalDate getPreviousPeriodEnd(ZoneId zone) {
+        return getStartDate(zone).minusDays(1);
     }
 
     /**
@@ -0,0 +1,14 @@
+package com.tomabot.model.event;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published when a batch of sessions has been completed.
+ * Carries IDs only: listeners run after the completion transaction has committed.
+ */
+public record SessionsCompletedEvent(List<CompletedSession> sessions) {
+
+    public record CompletedSession(Long sessionId, Long userId, String discordId,
+                                   int durationMinutes, Instant startTime, Instant endTime) {}
+}
@@ -0,0 +1,6 @@
+package com.tomabot.model.event;
+
+/**
+ * Published when a user completes a task
+ */
+public record TaskCompletedEvent(Long taskId, Long userId, String discordId) {}
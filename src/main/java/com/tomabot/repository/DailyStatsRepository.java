@@ -0,0 +1,81 @@
+package com.tomabot.repository;
+
+import com.tomabot.model.entity.PomodoroSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Per-user, per-day rollup rows in daily_stats, keyed by the date in the user's timezone.
+ * Every ended session and completed task is added to its day's row with an upsert,
+ * so period statistics read at most one small row per day.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DailyStatsRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Add ended sessions (completed or interrupted) to their day's row, creating it if needed
+     */
+    public void recordSessions(Collection<PomodoroSession> sessions) {
+        List<PomodoroSession> ended = sessions.stream()
+                .filter(session -> Boolean.TRUE.equals(session.getCompleted())
+                        || Boolean.TRUE.equals(session.getInterrupted()))
+                .toList();
+        if (ended.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO daily_stats AS d
+                    (user_id, stat_date, focus_minutes, sessions_completed, sessions_total, hour_histogram)
+                VALUES (?, ?, ?, ?, 1, (SELECT array_agg(CASE WHEN hr = ? THEN ? ELSE 0 END ORDER BY hr)
+                                        FROM generate_series(0, 23) AS hr))
+                ON CONFLICT (user_id, stat_date) DO UPDATE SET
+                    focus_minutes = COALESCE(d.focus_minutes, 0) + EXCLUDED.focus_minutes,
+                    sessions_completed = COALESCE(d.sessions_completed, 0) + EXCLUDED.sessions_completed,
+                    sessions_total = COALESCE(d.sessions_total, 0) + 1,
+                    hour_histogram[?] = d.hour_histogram[?] + EXCLUDED.sessions_completed
+                """, ended, ended.size(), (ps, session) -> {
+            boolean completed = Boolean.TRUE.equals(session.getCompleted());
+            ZonedDateTime start = session.getStartTime().atZone(session.getUser().getZoneId());
+            int hour = start.getHour();
+            ps.setLong(1, session.getUser().getId());
+            ps.setObject(2, start.toLocalDate());
+            ps.setInt(3, completed ? session.getDurationMinutes() : 0);
+            ps.setInt(4, completed ? 1 : 0);
+            ps.setInt(5, hour);
+            ps.setInt(6, completed ? 1 : 0);
+            // SQL arrays are 1-based
+            ps.setInt(7, hour + 1);
+            ps.setInt(8, hour + 1);
+        });
+    }
+
+    /**
+     * Add a completed task to its day's row, creating it if needed
+     */
+    public void recordTaskCompleted(Long userId, LocalDate date) {
+        jdbcTemplate.update("""
+                INSERT INTO daily_stats AS d (user_id, stat_date, tasks_completed)
+                VALUES (?, ?, 1)
+                ON CONFLICT (user_id, stat_date) DO UPDATE SET
+                    tasks_completed = COALESCE(d.tasks_completed, 0) + 1
+                """, userId, date);
+    }
+
+    /**
+     * Date of the user's first recorded activity, or null if there is none
+     */
+    public LocalDate findFirstStatDate(Long userId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT MIN(stat_date) FROM daily_stats WHERE user_id = ?", LocalDate.class, userId);
+    }
+}
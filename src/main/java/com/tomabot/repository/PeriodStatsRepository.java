@@ -0,0 +1,110 @@
+package com.tomabot.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Everything a period of /stats shows, read in a single pass over the daily_stats rollup:
+ * period totals, previous-period focus time, time-of-day split, per-day buckets
+ * and the active task count
+ */
+@Repository
+@RequiredArgsConstructor
+public class PeriodStatsRepository {
+
+    private static final String PERIOD_STATS_SQL = """
+            SELECT
+                COALESCE(SUM(focus_minutes) FILTER (WHERE stat_date >= :start), 0) AS focus_minutes,
+                COALESCE(SUM(sessions_completed) FILTER (WHERE stat_date >= :start), 0) AS sessions_completed,
+                COALESCE(SUM(sessions_total) FILTER (WHERE stat_date >= :start), 0) AS sessions_total,
+                COALESCE(SUM(tasks_completed) FILTER (WHERE stat_date >= :start), 0) AS tasks_completed,
+                COALESCE(SUM(focus_minutes) FILTER (WHERE stat_date < :start), 0) AS previous_focus_minutes,
+                COALESCE(SUM((SELECT SUM(n) FROM unnest(hour_histogram[1:12]) AS n))
+                         FILTER (WHERE stat_date >= :start), 0) AS morning_sessions,
+                COALESCE(SUM((SELECT SUM(n) FROM unnest(hour_histogram[13:18]) AS n))
+                         FILTER (WHERE stat_date >= :start), 0) AS afternoon_sessions,
+                COALESCE(SUM((SELECT SUM(n) FROM unnest(hour_histogram[19:24]) AS n))
+                         FILTER (WHERE stat_date >= :start), 0) AS evening_sessions,
+                array_agg(stat_date ORDER BY stat_date) FILTER (WHERE stat_date >= :start) AS days,
+                array_agg(COALESCE(focus_minutes, 0) ORDER BY stat_date)
+                         FILTER (WHERE stat_date >= :start) AS day_focus_minutes,
+                array_agg(COALESCE(sessions_completed, 0) ORDER BY stat_date)
+                         FILTER (WHERE stat_date >= :start) AS day_sessions_completed,
+                (SELECT COUNT(*) FROM tasks t WHERE t.user_id = :userId AND t.completed = FALSE) AS tasks_active
+            FROM daily_stats
+            WHERE user_id = :userId AND stat_date BETWEEN :previousStart AND :end
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Stats of the period [start, end] and the focus time of [previousStart, start)
+     */
+    public PeriodStats findPeriodStats(Long userId, LocalDate previousStart, LocalDate start, LocalDate end) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("previousStart", previousStart)
+                .addValue("start", start)
+                .addValue("end", end);
+
+        return jdbcTemplate.queryForObject(PERIOD_STATS_SQL, params, (rs, rowNum) -> new PeriodStats(
+                        rs.getInt("focus_minutes"),
+                        rs.getInt("sessions_completed"),
+                        rs.getInt("sessions_total"),
+                        rs.getInt("tasks_completed"),
+                        rs.getInt("tasks_active"),
+                        rs.getInt("previous_focus_minutes"),
+                        rs.getInt("morning_sessions"),
+                        rs.getInt("afternoon_sessions"),
+                        rs.getInt("evening_sessions"),
+                        toDailyMap(rs, "day_focus_minutes"),
+                        toDailyMap(rs, "day_sessions_completed")));
+    }
+
+    private Map<LocalDate, Integer> toDailyMap(ResultSet rs, String column) throws SQLException {
+        Array days = rs.getArray("days");
+        Array values = rs.getArray(column);
+        if (days == null || values == null) {
+            return Collections.emptyMap();
+        }
+
+        Date[] dates = (Date[]) days.getArray();
+        Integer[] counts = (Integer[]) values.getArray();
+        Map<LocalDate, Integer> daily = new LinkedHashMap<>();
+        for (int i = 0; i < dates.length; i++) {
+            daily.put(dates[i].toLocalDate(), counts[i]);
+        }
+        return daily;
+    }
+
+    /**
+     * Aggregates of one stats period
+     *
+     * @param dailyFocusMinutes      focus minutes per day with activity, oldest first
+     * @param dailySessionsCompleted completed sessions per day with activity, oldest first
+     */
+    public record PeriodStats(
+            int focusMinutes,
+            int sessionsCompleted,
+            int sessionsTotal,
+            int tasksCompleted,
+            int tasksActive,
+            int previousFocusMinutes,
+            int morningSessions,
+            int afternoonSessions,
+            int eveningSessions,
+            Map<LocalDate, Integer> dailyFocusMinutes,
+            Map<LocalDate, Integer> dailySessionsCompleted
+    ) {}
+}
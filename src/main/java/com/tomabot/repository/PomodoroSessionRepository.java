@@ -2,13 +2,16 @@ package com.tomabot.repository;
 
 import com.tomabot.model.entity.PomodoroSession;
 import com.tomabot.model.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +23,35 @@ public interface PomodoroSessionRepository extends JpaRepository<PomodoroSession
 
     List<PomodoroSession> findByUserOrderByStartTimeDesc(User user);
 
+    /**
+     * Find the running session of a user by Discord ID
+     */
+    @Query("SELECT s FROM PomodoroSession s WHERE s.user.discordId = :discordId " +
+            "AND s.completed = false AND s.interrupted = false")
+    Optional<PomodoroSession> findActiveByDiscordId(@Param("discordId") String discordId);
+
+    /**
+     * Find sessions still running (neither completed nor interrupted) with their user
+     */
+    @Query("SELECT s FROM PomodoroSession s JOIN FETCH s.user " +
+            "WHERE s.completed = false AND s.interrupted = false")
+    List<PomodoroSession> findPendingWithUser();
+
+    /**
+     * Find sessions by ID with their user, locking the rows (in ID order, so that
+     * concurrent batches cannot deadlock) until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PomodoroSession s JOIN FETCH s.user WHERE s.id IN :ids ORDER BY s.id")
+    List<PomodoroSession> findAllWithUserByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Find a session by ID, locking its row until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PomodoroSession s WHERE s.id = :id")
+    Optional<PomodoroSession> findByIdForUpdate(@Param("id") Long id);
+
     /**
      * Count sessions by user in date range
      */
@@ -88,31 +120,6 @@ public interface PomodoroSessionRepository extends JpaRepository<PomodoroSession
                                              @Param("startDate") Instant startDate,
                                              @Param("endDate") Instant endDate);
 
-    /**
-     * Count sessions by user grouped by date
-     */
-    @Query("SELECT FUNCTION('DATE', s.startTime) as sessionDate, COUNT(s) as count " +
-            "FROM PomodoroSession s WHERE s.user = :user AND s.completed = true " +
-            "AND s.startTime >= :startDate AND s.startTime < :endDate " +
-            "GROUP BY FUNCTION('DATE', s.startTime) " +
-            "ORDER BY sessionDate ASC")
-    List<Object[]> countSessionsByDate(@Param("user") User user,
-                                       @Param("startDate") Instant startDate,
-                                       @Param("endDate") Instant endDate);
-
-    /**
-     * Sum focus minutes by user grouped by date
-     */
-    @Query("SELECT FUNCTION('DATE', s.startTime) as sessionDate, " +
-            "SUM(s.durationMinutes) as totalMinutes " +
-            "FROM PomodoroSession s WHERE s.user = :user AND s.completed = true " +
-            "AND s.startTime >= :startDate AND s.startTime < :endDate " +
-            "GROUP BY FUNCTION('DATE', s.startTime) " +
-            "ORDER BY sessionDate ASC")
-    List<Object[]> sumFocusMinutesByDate(@Param("user") User user,
-                                         @Param("startDate") Instant startDate,
-                                         @Param("endDate") Instant endDate);
-
     /**
      * Get most productive day (max focus minutes in a single day)
      */
@@ -122,35 +129,4 @@ public interface PomodoroSessionRepository extends JpaRepository<PomodoroSession
             "GROUP BY FUNCTION('DATE', s.startTime) " +
             "ORDER BY totalMinutes DESC")
     List<Object[]> findMostProductiveDay(@Param("user") User user);
-
-    /**
-     * Count morning sessions (before 12pm)
-     */
-    @Query("SELECT COUNT(s) FROM PomodoroSession s WHERE s.user = :user " +
-            "AND s.completed = true AND EXTRACT(HOUR FROM s.startTime) < 12 " +
-            "AND s.startTime >= :startDate AND s.startTime < :endDate")
-    Long countMorningSessions(@Param("user") User user,
-                              @Param("startDate") Instant startDate,
-                              @Param("endDate") Instant endDate);
-
-    /**
-     * Count afternoon sessions (12pm-6pm)
-     */
-    @Query("SELECT COUNT(s) FROM PomodoroSession s WHERE s.user = :user " +
-            "AND s.completed = true AND EXTRACT(HOUR FROM s.startTime) >= 12 " +
-            "AND EXTRACT(HOUR FROM s.startTime) < 18 " +
-            "AND s.startTime >= :startDate AND s.startTime < :endDate")
-    Long countAfternoonSessions(@Param("user") User user,
-                                @Param("startDate") Instant startDate,
-                                @Param("endDate") Instant endDate);
-
-    /**
-     * Count evening sessions (after 6pm)
-     */
-    @Query("SELECT COUNT(s) FROM PomodoroSession s WHERE s.user = :user " +
-            "AND s.completed = true AND EXTRACT(HOUR FROM s.startTime) >= 18 " +
-            "AND s.startTime >= :startDate AND s.startTime < :endDate")
-    Long countEveningSessions(@Param("user") User user,
-                              @Param("startDate") Instant startDate,
-                              @Param("endDate") Instant endDate);
-}
\ No newline at end of file
+}
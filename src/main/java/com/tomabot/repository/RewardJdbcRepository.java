@@ -0,0 +1,162 @@
+package com.tomabot.repository;
+
+import com.tomabot.model.entity.XPTransaction;
+import com.tomabot.model.enums.XPSource;
+import com.tomabot.model.event.SessionsCompletedEvent.CompletedSession;
+import com.tomabot.model.event.TaskCompletedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Batched inserts for reward rows.
+ * Their entities use IDENTITY keys, which Hibernate cannot batch.
+ * <p>
+ * Also keeps pending_rewards, the rewards owed for committed completions: a row is written
+ * in the completion transaction and deleted by the transaction that grants the reward.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RewardJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert XP transactions for one user in a single batch
+     */
+    public void insertXpTransactions(Long userId, List<XPTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime createdAt = utc(Instant.now());
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO xp_transactions
+                    (user_id, source, amount, level_before, level_after, reference_id, description, created_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                """, transactions, transactions.size(), (ps, transaction) -> {
+            ps.setLong(1, userId);
+            ps.setString(2, transaction.getSource().name());
+            ps.setInt(3, transaction.getAmount());
+            ps.setInt(4, transaction.getLevelBefore());
+            ps.setInt(5, transaction.getLevelAfter());
+            ps.setObject(6, transaction.getReferenceId());
+            ps.setString(7, transaction.getDescription());
+            ps.setObject(8, createdAt);
+        });
+    }
+
+    /**
+     * Insert achievement unlocks for one user in a single batch
+     */
+    public void insertUserAchievements(Long userId, Collection<Long> achievementIds) {
+        if (achievementIds.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime unlockedAt = utc(Instant.now());
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO user_achievements (user_id, achievement_id, unlocked_at)
+                VALUES (?, ?, ?)
+                ON CONFLICT (user_id, achievement_id) DO NOTHING
+                """, achievementIds, achievementIds.size(), (ps, achievementId) -> {
+            ps.setLong(1, userId);
+            ps.setLong(2, achievementId);
+            ps.setObject(3, unlockedAt);
+        });
+    }
+
+    /**
+     * Record that the given completed sessions are owed their rewards
+     */
+    public void insertPendingSessionRewards(List<CompletedSession> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime createdAt = utc(Instant.now());
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO pending_rewards (user_id, source, reference_id, created_at)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (source, reference_id) DO NOTHING
+                """, sessions, sessions.size(), (ps, session) -> {
+            ps.setLong(1, session.userId());
+            ps.setString(2, XPSource.SESSION_COMPLETED.name());
+            ps.setLong(3, session.sessionId());
+            ps.setObject(4, createdAt);
+        });
+    }
+
+    /**
+     * Record that a completed task is owed its reward
+     */
+    public void insertPendingTaskReward(Long userId, Long taskId) {
+        jdbcTemplate.update("""
+                INSERT INTO pending_rewards (user_id, source, reference_id, created_at)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (source, reference_id) DO NOTHING
+                """, userId, XPSource.TASK_COMPLETED.name(), taskId, utc(Instant.now()));
+    }
+
+    /**
+     * Take a pending reward for the current transaction. The row stays locked until it ends,
+     * so a concurrent grant of the same reward waits, then finds nothing to claim.
+     *
+     * @return false if the reward was already granted
+     */
+    public boolean claimPendingReward(XPSource source, Long referenceId) {
+        return jdbcTemplate.update("DELETE FROM pending_rewards WHERE source = ? AND reference_id = ?",
+                source.name(), referenceId) > 0;
+    }
+
+    /**
+     * Completed sessions owed their rewards since before the given instant
+     */
+    public List<CompletedSession> findPendingSessionRewards(Instant createdBefore, int limit) {
+        return jdbcTemplate.query("""
+                SELECT s.id, s.user_id, u.discord_id, s.duration_minutes, s.start_time, s.end_time
+                FROM pending_rewards p
+                JOIN sessions s ON s.id = p.reference_id
+                JOIN users u ON u.id = s.user_id
+                WHERE p.source = ? AND p.created_at < ?
+                ORDER BY p.id
+                LIMIT ?
+                """, (rs, rowNum) -> new CompletedSession(
+                        rs.getLong("id"),
+                        rs.getLong("user_id"),
+                        rs.getString("discord_id"),
+                        rs.getInt("duration_minutes"),
+                        rs.getObject("start_time", LocalDateTime.class).toInstant(ZoneOffset.UTC),
+                        rs.getObject("end_time", LocalDateTime.class).toInstant(ZoneOffset.UTC)),
+                XPSource.SESSION_COMPLETED.name(), utc(createdBefore), limit);
+    }
+
+    /**
+     * Completed tasks owed their rewards since before the given instant
+     */
+    public List<TaskCompletedEvent> findPendingTaskRewards(Instant createdBefore, int limit) {
+        return jdbcTemplate.query("""
+                SELECT p.reference_id, p.user_id, u.discord_id
+                FROM pending_rewards p
+                JOIN users u ON u.id = p.user_id
+                WHERE p.source = ? AND p.created_at < ?
+                ORDER BY p.id
+                LIMIT ?
+                """, (rs, rowNum) -> new TaskCompletedEvent(
+                        rs.getLong("reference_id"),
+                        rs.getLong("user_id"),
+                        rs.getString("discord_id")),
+                XPSource.TASK_COMPLETED.name(), utc(createdBefore), limit);
+    }
+
+    // Timestamp columns hold UTC wall time, as written by Hibernate (jdbc.time_zone: UTC)
+    private LocalDateTime utc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
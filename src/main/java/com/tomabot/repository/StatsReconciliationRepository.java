@@ -0,0 +1,71 @@
+package com.tomabot.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Set-based reconciliation of the lifetime totals in user_stats against sessions and tasks.
+ * Each call covers a range of user ids with one statement, instead of one round trip per user.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsReconciliationRepository {
+
+    // Creates missing rows and rewrites only the rows whose totals drifted
+    private static final String RECONCILE_SQL = """
+            WITH changed AS (
+                INSERT INTO user_stats AS us
+                    (user_id, total_sessions_completed, total_sessions_interrupted,
+                     total_focus_minutes, total_tasks_completed)
+                SELECT u.id,
+                       COALESCE(s.completed, 0),
+                       COALESCE(s.interrupted, 0),
+                       COALESCE(s.focus_minutes, 0),
+                       COALESCE(t.completed, 0)
+                FROM users u
+                LEFT JOIN (
+                    SELECT user_id,
+                           COUNT(*) FILTER (WHERE completed) AS completed,
+                           COUNT(*) FILTER (WHERE interrupted) AS interrupted,
+                           SUM(duration_minutes) FILTER (WHERE completed) AS focus_minutes
+                    FROM sessions
+                    WHERE user_id BETWEEN ? AND ?
+                    GROUP BY user_id
+                ) s ON s.user_id = u.id
+                LEFT JOIN (
+                    SELECT user_id, COUNT(*) AS completed
+                    FROM tasks
+                    WHERE user_id BETWEEN ? AND ? AND completed = TRUE
+                    GROUP BY user_id
+                ) t ON t.user_id = u.id
+                WHERE u.id BETWEEN ? AND ?
+                ON CONFLICT (user_id) DO UPDATE SET
+                    total_sessions_completed = EXCLUDED.total_sessions_completed,
+                    total_sessions_interrupted = EXCLUDED.total_sessions_interrupted,
+                    total_focus_minutes = EXCLUDED.total_focus_minutes,
+                    total_tasks_completed = EXCLUDED.total_tasks_completed
+                WHERE (us.total_sessions_completed, us.total_sessions_interrupted,
+                       us.total_focus_minutes, us.total_tasks_completed)
+                      IS DISTINCT FROM
+                      (EXCLUDED.total_sessions_completed, EXCLUDED.total_sessions_interrupted,
+                       EXCLUDED.total_focus_minutes, EXCLUDED.total_tasks_completed)
+                RETURNING us.user_id
+            )
+            SELECT u.discord_id FROM changed c JOIN users u ON u.id = c.user_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Recompute the lifetime totals of users with ids in [fromId, toId]
+     *
+     * @return Discord ids of the users whose row was created or changed
+     */
+    public List<String> reconcile(long fromId, long toId) {
+        return jdbcTemplate.queryForList(RECONCILE_SQL, String.class,
+                fromId, toId, fromId, toId, fromId, toId);
+    }
+}
@@ -0,0 +1,83 @@
+package com.tomabot.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk streak expiry over user_stats. Candidates are found through the partial index on
+ * last_session_date of rows with an active streak, so each run only touches the few rows
+ * that can have expired since the previous one.
+ * Timestamps are stored as UTC.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StreakRepository {
+
+    private static final String EXPIRE_SQL = """
+            UPDATE user_stats us
+            SET current_streak = 0
+            FROM users u,
+                 unnest(?::varchar[], ?::timestamp[]) AS c(timezone, cutoff)
+            WHERE u.id = us.user_id
+              AND COALESCE(u.timezone, 'UTC') = c.timezone
+              AND us.current_streak > 0
+              AND us.last_session_date < ?
+              AND us.last_session_date < c.cutoff
+            RETURNING us.user_id, u.discord_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Timezones of users with an active streak and no session since {@code before}
+     */
+    public List<String> findActiveStreakTimezones(Instant before) {
+        return jdbcTemplate.queryForList("""
+                SELECT DISTINCT COALESCE(u.timezone, 'UTC')
+                FROM user_stats us
+                JOIN users u ON u.id = us.user_id
+                WHERE us.current_streak > 0 AND us.last_session_date < ?
+                """, String.class, utc(before));
+    }
+
+    /**
+     * Reset the streak of users whose last session is before the cutoff of their timezone
+     *
+     * @param cutoffs per stored timezone value, the instant the user's streak expires at
+     * @param before  upper bound of every cutoff, used for the index range
+     * @return the users whose streak was reset
+     */
+    public List<ExpiredStreak> expireStreaks(Map<String, Instant> cutoffs, Instant before) {
+        if (cutoffs.isEmpty()) {
+            return List.of();
+        }
+
+        String[] timezones = cutoffs.keySet().toArray(String[]::new);
+        String[] instants = new String[timezones.length];
+        for (int i = 0; i < timezones.length; i++) {
+            instants[i] = utc(cutoffs.get(timezones[i])).toString();
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(EXPIRE_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", timezones));
+            ps.setArray(2, connection.createArrayOf("varchar", instants));
+            ps.setObject(3, utc(before));
+            return ps;
+        }, (rs, rowNum) -> new ExpiredStreak(rs.getLong("user_id"), rs.getString("discord_id")));
+    }
+
+    private LocalDateTime utc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    public record ExpiredStreak(long userId, String discordId) {}
+}
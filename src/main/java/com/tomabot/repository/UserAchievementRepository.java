@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserAchievementRepository extends JpaRepository<UserAchievement, Long> {
@@ -29,6 +30,12 @@ public interface UserAchievementRepository extends JpaRepository<UserAchievement
      */
     boolean existsByUserAndAchievement(User user, Achievement achievement);
 
+    /**
+     * IDs of the achievements a user has unlocked
+     */
+    @Query("SELECT ua.achievement.id FROM UserAchievement ua WHERE ua.user.id = :userId")
+    Set<Long> findAchievementIdsByUserId(@Param("userId") Long userId);
+
     /**
      * Count unlocked achievements for user
      */
@@ -1,12 +1,16 @@
 package com.tomabot.repository;
 
+import com.tomabot.model.dto.LeaderboardProfile;
 import com.tomabot.model.entity.User;
 import com.tomabot.model.entity.UserStats;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -18,18 +22,51 @@ public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
      */
     Optional<UserStats> findByUser(User user);
 
+    /**
+     * Find stats for several users at once
+     */
+    List<UserStats> findByUserIn(Collection<User> users);
+
     /**
      * Find stats by user ID
      */
     @Query("SELECT us FROM UserStats us WHERE us.user.id = :userId")
     Optional<UserStats> findByUserId(@Param("userId") Long userId);
 
+    /**
+     * Find stats with their user by user ID and lock the row until the end of the transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT us FROM UserStats us JOIN FETCH us.user WHERE us.user.id = :userId")
+    Optional<UserStats> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    /**
+     * Find stats with their user for several user IDs at once
+     */
+    @Query("SELECT us FROM UserStats us JOIN FETCH us.user WHERE us.user.id IN :userIds")
+    List<UserStats> findWithUserByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Find stats rows with their user by stats ID
+     */
+    @Query("SELECT us FROM UserStats us JOIN FETCH us.user WHERE us.id IN :ids")
+    List<UserStats> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Find stats by Discord ID
      */
     @Query("SELECT us FROM UserStats us WHERE us.user.discordId = :discordId")
     Optional<UserStats> findByDiscordId(@Param("discordId") String discordId);
 
+    /**
+     * Leaderboard fields of several users at once, by Discord ID
+     */
+    @Query("SELECT new com.tomabot.model.dto.LeaderboardProfile(u.discordId, u.username, us.level, " +
+            "us.totalXpEarned, us.totalSessionsCompleted, us.totalFocusMinutes, us.currentStreak, " +
+            "us.totalTasksCompleted, us.achievementsCount) " +
+            "FROM UserStats us JOIN us.user u WHERE u.discordId IN :discordIds")
+    List<LeaderboardProfile> findLeaderboardProfiles(@Param("discordIds") Collection<String> discordIds);
+
     /**
      * Get top users by total focus minutes
      */
@@ -0,0 +1,94 @@
+package com.tomabot.service;
+
+import com.tomabot.model.entity.Achievement;
+import com.tomabot.model.enums.AchievementType;
+import com.tomabot.repository.AchievementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of the enabled achievement catalog, grouped by requirement type
+ * and sorted by requirement value. The catalog is reference data seeded by migrations,
+ * so it is loaded once and reused by every unlock check.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AchievementRuleIndex {
+
+    /**
+     * Types whose requirement is a counter compared to a threshold: once a threshold
+     * is unmet, every higher threshold of the same type is unmet too.
+     */
+    private static final Set<AchievementType> THRESHOLD_TYPES = EnumSet.of(
+            AchievementType.SESSIONS_COMPLETED,
+            AchievementType.TOTAL_FOCUS_MINUTES,
+            AchievementType.STREAK_DAYS,
+            AchievementType.TASKS_COMPLETED,
+            AchievementType.LEVEL_REACHED,
+            AchievementType.MORNING_SESSIONS,
+            AchievementType.EVENING_SESSIONS);
+
+    private final AchievementRepository achievementRepository;
+
+    private volatile Catalog catalog;
+
+    /**
+     * Enabled achievements in display order
+     */
+    public List<Achievement> getCatalog() {
+        return catalog().all();
+    }
+
+    /**
+     * Enabled achievements of a type, lowest requirement first
+     */
+    public List<Achievement> getRules(AchievementType type) {
+        return catalog().byType().getOrDefault(type, List.of());
+    }
+
+    public boolean isThresholdType(AchievementType type) {
+        return THRESHOLD_TYPES.contains(type);
+    }
+
+    /**
+     * Reload the catalog, e.g. after achievements were enabled or added
+     */
+    public void refresh() {
+        List<Achievement> all = achievementRepository.findByIsEnabledTrueOrderByDisplayOrderAsc();
+
+        Map<AchievementType, List<Achievement>> byType = all.stream()
+                .collect(Collectors.groupingBy(Achievement::getRequirementType,
+                        () -> new EnumMap<>(AchievementType.class),
+                        Collectors.collectingAndThen(Collectors.toList(), rules -> rules.stream()
+                                .sorted(Comparator.comparing(Achievement::getRequirementValue))
+                                .toList())));
+
+        catalog = new Catalog(List.copyOf(all), byType);
+        log.info("Indexed {} achievements across {} requirement types", all.size(), byType.size());
+    }
+
+    private Catalog catalog() {
+        Catalog current = catalog;
+        if (current == null) {
+            synchronized (this) {
+                if (catalog == null) {
+                    refresh();
+                }
+                current = catalog;
+            }
+        }
+        return current;
+    }
+
+    private record Catalog(List<Achievement> all, Map<AchievementType, List<Achievement>> byType) {}
+}
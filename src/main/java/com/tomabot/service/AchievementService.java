@@ -3,25 +3,15 @@ package com.tomabot.service;
 import com.tomabot.model.dto.AchievementDTO;
 import com.tomabot.model.entity.Achievement;
 import com.tomabot.model.entity.User;
-import com.tomabot.model.entity.UserAchievement;
 import com.tomabot.model.entity.UserStats;
-import com.tomabot.model.enums.XPSource;
-import com.tomabot.repository.AchievementRepository;
-import com.tomabot.repository.PomodoroSessionRepository;
-import com.tomabot.repository.UserAchievementRepository;
 import com.tomabot.repository.UserStatsRepository;
 import lombok.extern.slf4j.Slf4j;
-import net.dv8tion.jda.api.EmbedBuilder;
-import net.dv8tion.jda.api.JDA;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.awt.Color;
-import java.time.Instant;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,27 +22,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class AchievementService {
 
-    private JDA jda;
-    private AchievementRepository achievementRepository;
-    private UserAchievementRepository userAchievementRepository;
     private UserStatsRepository userStatsRepository;
-    private ExperienceService experienceService;
-    private PomodoroSessionRepository pomodoroSessionRepository; // NEW
-
-    @Autowired
-    public void setJda(@Lazy JDA jda) {
-        this.jda = jda;
-    }
-
-    @Autowired
-    public void setAchievementRepository(AchievementRepository achievementRepository) {
-        this.achievementRepository = achievementRepository;
-    }
-
-    @Autowired
-    public void setUserAchievementRepository(UserAchievementRepository userAchievementRepository) {
-        this.userAchievementRepository = userAchievementRepository;
-    }
+    private AchievementRuleIndex achievementRuleIndex;
+    private UnlockedAchievementCache unlockedAchievementCache;
 
     @Autowired
     public void setUserStatsRepository(UserStatsRepository userStatsRepository) {
@@ -60,48 +32,19 @@ public class AchievementService {
     }
 
     @Autowired
-    public void setExperienceService(ExperienceService experienceService) {
-        this.experienceService = experienceService;
+    public void setAchievementRuleIndex(AchievementRuleIndex achievementRuleIndex) {
+        this.achievementRuleIndex = achievementRuleIndex;
     }
 
     @Autowired
-    public void setPomodoroSessionRepository(PomodoroSessionRepository pomodoroSessionRepository) {
-        this.pomodoroSessionRepository = pomodoroSessionRepository;
-    }
-
-    /**
-     * Check and unlock achievements for user based on their stats
-     */
-    @Transactional
-    public List<Achievement> checkAndUnlockAchievements(User user) {
-        UserStats stats = userStatsRepository.findByUser(user).orElse(null);
-        if (stats == null) {
-            return List.of();
-        }
-
-        List<Achievement> unlocked = new ArrayList<>();
-        List<Achievement> allAchievements = achievementRepository.findByIsEnabledTrueOrderByDisplayOrderAsc();
-
-        for (Achievement achievement : allAchievements) {
-            // Skip if already unlocked
-            if (userAchievementRepository.existsByUserAndAchievement(user, achievement)) {
-                continue;
-            }
-
-            // Check if requirement is met
-            if (isRequirementMet(user, stats, achievement)) {
-                unlockAchievement(user, achievement); //NOSONAR
-                unlocked.add(achievement);
-            }
-        }
-
-        return unlocked;
+    public void setUnlockedAchievementCache(UnlockedAchievementCache unlockedAchievementCache) {
+        this.unlockedAchievementCache = unlockedAchievementCache;
     }
 
     /**
      * Check if achievement requirement is met
      */
-    private boolean isRequirementMet(User user, UserStats stats, Achievement achievement) {
+    boolean isRequirementMet(User user, UserStats stats, Achievement achievement) {
         return switch (achievement.getRequirementType()) {
             case SESSIONS_COMPLETED ->
                     stats.getTotalSessionsCompleted() >= achievement.getRequirementValue();
@@ -114,9 +57,9 @@ public class AchievementService {
             case LEVEL_REACHED ->
                     stats.getLevel() >= achievement.getRequirementValue();
             case MORNING_SESSIONS ->
-                    checkMorningSessions(user, achievement.getRequirementValue());
+                    stats.countSessionsBetweenHours(0, 12) >= achievement.getRequirementValue();
             case EVENING_SESSIONS ->
-                    checkEveningSessions(user, achievement.getRequirementValue());
+                    stats.countSessionsBetweenHours(18, 24) >= achievement.getRequirementValue();
             case SPECIAL_DATE ->
                     checkSpecialDate(achievement.getCode());
             case PERFECT_WEEK ->
@@ -126,59 +69,25 @@ public class AchievementService {
     }
 
     /**
-     * Unlock achievement for user
-     */
-    @Transactional
-    public void unlockAchievement(User user, Achievement achievement) {
-        // Create user achievement record
-        UserAchievement userAchievement = UserAchievement.builder()
-                .user(user)
-                .achievement(achievement)
-                .build();
-
-        userAchievementRepository.save(userAchievement);
-
-        // Update stats
-        UserStats stats = userStatsRepository.findByUser(user).orElseThrow();
-        stats.setAchievementsCount(stats.getAchievementsCount() + 1);
-        userStatsRepository.save(stats);
-
-        // Grant XP reward
-        experienceService.grantXP(user, XPSource.ACHIEVEMENT_UNLOCKED,
-                achievement.getTotalXPReward(), achievement.getId());
-
-        // Send notification
-        sendAchievementNotification(user, achievement);
-
-        log.info("User {} unlocked achievement: {} (+{} XP)",
-                user.getDiscordId(), achievement.getName(), achievement.getTotalXPReward());
-    }
-
-    /**
-     * Get all achievements with user progress
+     * Get all achievements with user progress.
+     * Unlock status comes from the bitmap cache, so unlockedAt is not populated.
      */
     @Transactional(readOnly = true)
     public List<AchievementDTO> getUserAchievements(User user) {
         UserStats stats = userStatsRepository.findByUser(user).orElse(null);
-        List<Achievement> allAchievements = achievementRepository.findByIsEnabledTrueOrderByDisplayOrderAsc();
-        List<UserAchievement> unlockedAchievements = userAchievementRepository.findByUserOrderByUnlockedAtDesc(user);
+        List<Achievement> allAchievements = achievementRuleIndex.getCatalog();
+        BitSet unlockedIds = unlockedAchievementCache.get(user.getId());
 
         return allAchievements.stream()
-                .map(achievement -> buildAchievementDTO(achievement, stats, unlockedAchievements))
+                .map(achievement -> buildAchievementDTO(achievement, stats,
+                        unlockedIds.get(Math.toIntExact(achievement.getId()))))
                 .collect(Collectors.toList());
     }
 
     /**
      * Build achievement DTO with progress
      */
-    private AchievementDTO buildAchievementDTO(Achievement achievement, UserStats stats,
-                                               List<UserAchievement> unlockedAchievements) {
-        UserAchievement userAchievement = unlockedAchievements.stream()
-                .filter(ua -> ua.getAchievement().getId().equals(achievement.getId()))
-                .findFirst()
-                .orElse(null);
-
-        boolean unlocked = userAchievement != null;
+    private AchievementDTO buildAchievementDTO(Achievement achievement, UserStats stats, boolean unlocked) {
         Integer currentProgress = stats != null ? getCurrentProgress(stats, achievement) : 0;
 
         AchievementDTO dto = AchievementDTO.builder()
@@ -189,7 +98,6 @@ public class AchievementService {
                 .icon(achievement.getIcon())
                 .rarity(achievement.getRarity())
                 .unlocked(unlocked)
-                .unlockedAt(unlocked ? userAchievement.getUnlockedAt() : null)
                 .xpAwarded(unlocked ? achievement.getTotalXPReward() : null)
                 .currentProgress(currentProgress)
                 .requiredProgress(achievement.getRequirementValue())
@@ -215,38 +123,6 @@ public class AchievementService {
         };
     }
 
-    /**
-     * Check morning sessions requirement
-     */
-    private boolean checkMorningSessions(User user, int required) {
-        try {
-            // Count sessions started before 12 PM
-            Instant allTimeStart = Instant.ofEpochMilli(0);
-            Instant now = Instant.now();
-            Long morningCount = pomodoroSessionRepository.countMorningSessions(user, allTimeStart, now);
-            return morningCount != null && morningCount >= required;
-        } catch (Exception e) {
-            log.error("Error checking morning sessions for user {}", user.getDiscordId(), e);
-            return false;
-        }
-    }
-
-    /**
-     * Check evening sessions requirement
-     */
-    private boolean checkEveningSessions(User user, int required) {
-        try {
-            // Count sessions started after 6 PM
-            Instant allTimeStart = Instant.ofEpochMilli(0);
-            Instant now = Instant.now();
-            Long eveningCount = pomodoroSessionRepository.countEveningSessions(user, allTimeStart, now);
-            return eveningCount != null && eveningCount >= required;
-        } catch (Exception e) {
-            log.error("Error checking evening sessions for user {}", user.getDiscordId(), e);
-            return false;
-        }
-    }
-
     /**
      * Check special date achievements (Christmas, Halloween, etc.)
      */
@@ -269,59 +145,23 @@ public class AchievementService {
         return false;
     }
 
-    /**
-     * Send achievement unlock notification via DM
-     */
-    private void sendAchievementNotification(User user, Achievement achievement) {
-        try {
-            net.dv8tion.jda.api.entities.User discordUser =
-                    jda.retrieveUserById(user.getDiscordId()).complete();
-
-            if (discordUser == null) {
-                log.warn("Could not find Discord user {}", user.getDiscordId());
-                return;
-            }
-
-            EmbedBuilder embed = new EmbedBuilder()
-                    .setColor(Color.decode(achievement.getRarity().getColor()))
-                    .setTitle("🏆 ACHIEVEMENT UNLOCKED! 🏆")
-                    .setDescription(String.format("""
-                            **%s**
-                            
-                            %s""",
-                            achievement.getIcon() + " " + achievement.getName(),
-                            achievement.getDescription()))
-                    .addField("Rarity", achievement.getRarity().getDisplayName(), true)
-                    .addField("XP Reward", String.format("+%d XP", achievement.getTotalXPReward()), true)
-                    .setFooter("Keep it up! More achievements await! 🍅")
-                    .setTimestamp(Instant.now());
-
-            discordUser.openPrivateChannel().queue(channel ->
-                    channel.sendMessageEmbeds(embed.build()).queue(
-                            success -> log.info("Sent achievement notification to {}", user.getDiscordId()),
-                            error -> log.warn("Failed to send achievement notification: {}", error.getMessage())
-                    )
-            );
-
-        } catch (Exception e) {
-            log.error("Error sending achievement notification to {}", user.getDiscordId(), e);
-        }
-    }
-
     /**
      * Get achievement statistics
      */
     @Transactional(readOnly = true)
     public AchievementStatsDTO getAchievementStats(User user) {
-        Long totalAchievements = achievementRepository.countEnabled();
-        Long unlockedCount = userAchievementRepository.countByUser(user);
-        Double completionPercentage = userAchievementRepository.getCompletionPercentage(user);
-
-        return new AchievementStatsDTO(
-                totalAchievements != null ? totalAchievements.intValue() : 0,
-                unlockedCount != null ? unlockedCount.intValue() : 0,
-                completionPercentage != null ? completionPercentage : 0.0
-        );
+        List<Achievement> catalog = achievementRuleIndex.getCatalog();
+        BitSet unlockedIds = unlockedAchievementCache.get(user.getId());
+        // The bitmap also holds achievements that were unlocked and later disabled
+        int totalAchievements = catalog.size();
+        int unlockedCount = (int) catalog.stream()
+                .filter(achievement -> unlockedIds.get(Math.toIntExact(achievement.getId())))
+                .count();
+        double completionPercentage = totalAchievements > 0
+                ? (double) unlockedCount / totalAchievements * 100
+                : 0.0;
+
+        return new AchievementStatsDTO(totalAchievements, unlockedCount, completionPercentage);
     }
 
     /**
@@ -0,0 +1,270 @@
+package com.tomabot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a job over every row of a table without loading the table: ids are read in keyset
+ * pages ({@code WHERE id > :last ORDER BY id LIMIT :chunk}) and each page is handed to a
+ * bounded worker pool as one chunk, processed in its own short transaction.
+ * Rows inserted after a run started are left to the next run.
+ * <p>
+ * Resumable jobs checkpoint the highest id below which every chunk succeeded
+ * ({@code batch:checkpoint:{job}}); a run started while a recent checkpoint exists
+ * continues after it instead of starting over. The checkpoint never passes a failed chunk
+ * and is kept when the run ends with failures, so the next run retries from there.
+ * Their handlers must therefore be safe to run again on the same ids.
+ * <p>
+ * Reported per job as tomabot.batch.items (throughput), tomabot.batch.chunk (chunk time),
+ * tomabot.batch.failures and tomabot.batch.lag (ids between the checkpoint and the last id).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BatchJobRunner {
+
+    private static final String CHECKPOINT_KEY = "batch:checkpoint:";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${tomabot.batch.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${tomabot.batch.threads:2}")
+    private int threads;
+
+    @Value("${tomabot.batch.queue-capacity:4}")
+    private int queueCapacity;
+
+    // An older checkpoint belongs to a run that was abandoned, not interrupted
+    @Value("${tomabot.batch.checkpoint-ttl-hours:6}")
+    private long checkpointTtlHours;
+
+    private ExecutorService executor;
+    private TransactionTemplate chunkTransaction;
+    private final Map<String, AtomicLong> lag = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        executor = StageExecutors.bounded("tomabot.batch", "batch", threads, queueCapacity, meterRegistry);
+        chunkTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void stop() {
+        StageExecutors.shutdown(executor);
+    }
+
+    /**
+     * Process every row of a table, in chunks of ids in ascending order
+     *
+     * @param job       job name, used for metrics and the checkpoint
+     * @param table     table to page through, by its {@code id} column
+     * @param resumable whether to checkpoint progress and resume from it
+     * @param handler   work for one chunk, run inside its transaction
+     */
+    public Result run(String job, String table, boolean resumable, ChunkHandler handler) {
+        long startId = resumable ? readCheckpoint(job) : 0L;
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (maxId == null || maxId <= startId) {
+            clearCheckpoint(job, resumable);
+            return new Result(0, 0, 0);
+        }
+        if (startId > 0) {
+            log.info("Resuming batch job {} after id {}", job, startId);
+        }
+
+        JobRun run = new JobRun(job, handler, resumable, maxId);
+        run.lag.set(maxId - startId);
+        String pageSql = "SELECT id FROM " + table + " WHERE id > ? AND id <= ? ORDER BY id LIMIT ?";
+        long startedAt = System.nanoTime();
+
+        long lastId = startId;
+        List<Long> ids;
+        while (!(ids = jdbcTemplate.queryForList(pageSql, Long.class, lastId, maxId, chunkSize)).isEmpty()) {
+            List<Long> chunk = ids;
+            lastId = chunk.get(chunk.size() - 1);
+            // A full queue runs the chunk on this thread, which holds back the next page
+            run.pending.add(new PendingChunk(lastId, CompletableFuture.supplyAsync(() -> run.process(chunk), executor)));
+            run.advanceCheckpoint();
+        }
+
+        CompletableFuture.allOf(run.pending.stream().map(PendingChunk::done).toArray(CompletableFuture[]::new))
+                .join();
+        run.advanceCheckpoint();
+        if (run.failedChunks.get() == 0) {
+            clearCheckpoint(job, resumable);
+        } else if (resumable) {
+            log.warn("Batch job {} keeps its checkpoint before the first failed chunk for the next run", job);
+        }
+
+        long elapsedMs = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), 1);
+        log.info("Batch job {} processed {} rows in {} ms ({} rows/s, {} failed chunks)",
+                job, run.items.get(), elapsedMs, run.items.get() * 1000 / elapsedMs, run.failedChunks.get());
+        return new Result(run.items.get(), run.affected.get(), run.failedChunks.get());
+    }
+
+    /**
+     * Whether a resumable job was interrupted recently enough to resume
+     */
+    public boolean hasCheckpoint(String job) {
+        return readCheckpoint(job) > 0;
+    }
+
+    private long readCheckpoint(String job) {
+        try {
+            String checkpoint = stringRedisTemplate.opsForValue().get(CHECKPOINT_KEY + job);
+            return checkpoint != null ? Long.parseLong(checkpoint) : 0L;
+        } catch (Exception e) {
+            log.warn("Could not read checkpoint of batch job {}, starting over: {}", job, e.getMessage());
+            return 0L;
+        }
+    }
+
+    private void writeCheckpoint(String job, long id) {
+        try {
+            stringRedisTemplate.opsForValue().set(CHECKPOINT_KEY + job, String.valueOf(id),
+                    checkpointTtlHours, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("Could not checkpoint batch job {}: {}", job, e.getMessage());
+        }
+    }
+
+    private void clearCheckpoint(String job, boolean resumable) {
+        if (!resumable) {
+            return;
+        }
+        try {
+            stringRedisTemplate.delete(CHECKPOINT_KEY + job);
+        } catch (Exception e) {
+            log.warn("Could not clear checkpoint of batch job {}: {}", job, e.getMessage());
+        }
+    }
+
+    /**
+     * State of one run of a job
+     */
+    private class JobRun {
+
+        private final String job;
+        private final ChunkHandler handler;
+        private final boolean resumable;
+        private final long maxId;
+        private final AtomicLong lag;
+        private final Timer chunkTimer;
+        private final Counter itemCounter;
+        private final Counter failureCounter;
+        private final Deque<PendingChunk> pending = new ArrayDeque<>();
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong affected = new AtomicLong();
+        private final AtomicInteger failedChunks = new AtomicInteger();
+        // Set once a chunk failed: the checkpoint stays before it. Only touched by the run's thread
+        private boolean stalled;
+
+        JobRun(String job, ChunkHandler handler, boolean resumable, long maxId) {
+            this.job = job;
+            this.handler = handler;
+            this.resumable = resumable;
+            this.maxId = maxId;
+            this.lag = BatchJobRunner.this.lag.computeIfAbsent(job, name ->
+                    meterRegistry.gauge("tomabot.batch.lag", Tags.of("job", name), new AtomicLong()));
+            this.chunkTimer = meterRegistry.timer("tomabot.batch.chunk", "job", job);
+            this.itemCounter = meterRegistry.counter("tomabot.batch.items", "job", job);
+            this.failureCounter = meterRegistry.counter("tomabot.batch.failures", "job", job);
+        }
+
+        /**
+         * A failed chunk is logged and counted, and the run goes on without it
+         *
+         * @return whether the chunk succeeded
+         */
+        boolean process(List<Long> ids) {
+            boolean succeeded = true;
+            try {
+                Integer count = chunkTimer.record(() -> chunkTransaction.execute(status -> handler.process(ids)));
+                affected.addAndGet(count != null ? count : 0);
+            } catch (Exception e) {
+                succeeded = false;
+                failedChunks.incrementAndGet();
+                failureCounter.increment();
+                log.error("Batch job {} failed for ids {}-{}", job, ids.get(0), ids.get(ids.size() - 1), e);
+            }
+            items.addAndGet(ids.size());
+            itemCounter.increment(ids.size());
+            return succeeded;
+        }
+
+        /**
+         * Move the checkpoint past every chunk that is done and has no unfinished chunk before it,
+         * up to the first failed chunk
+         */
+        void advanceCheckpoint() {
+            Long doneUpTo = null;
+            while (!pending.isEmpty() && pending.peekFirst().done().isDone()) {
+                PendingChunk chunk = pending.pollFirst();
+                stalled |= !chunk.done().join();
+                if (!stalled) {
+                    doneUpTo = chunk.lastId();
+                }
+            }
+            if (doneUpTo == null) {
+                return;
+            }
+            lag.set(maxId - doneUpTo);
+            if (resumable) {
+                writeCheckpoint(job, doneUpTo);
+            }
+        }
+    }
+
+    private record PendingChunk(long lastId, CompletableFuture<Boolean> done) {}
+
+    /**
+     * Work for one chunk of ids
+     */
+    @FunctionalInterface
+    public interface ChunkHandler {
+
+        /**
+         * @param ids ids of the chunk, ascending; every row of the table between the first
+         *            and the last id present when the page was read is included
+         * @return number of rows the chunk changed
+         */
+        int process(List<Long> ids);
+    }
+
+    /**
+     * Outcome of a run
+     *
+     * @param items        rows processed
+     * @param affected     rows changed, as reported by the handler
+     * @param failedChunks chunks that failed; a resumable job retries them on its next run
+     */
+    public record Result(long items, long affected, int failedChunks) {}
+}
@@ -0,0 +1,90 @@
+package com.tomabot.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Discord ids of each guild's members, as a Redis set per guild ({@code guild:members:{guildId}}).
+ * Written through the same template as the leaderboards, so members intersect with board entries.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GuildMemberService {
+
+    private static final String KEY_PREFIX = "guild:members:";
+    private static final int SYNC_BATCH_SIZE = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public void addMember(String guildId, String discordId) {
+        try {
+            redisTemplate.opsForSet().add(membersKey(guildId), discordId);
+        } catch (Exception e) {
+            log.warn("Failed to add member {} to guild {}: {}", discordId, guildId, e.getMessage());
+        }
+    }
+
+    public void removeMember(String guildId, String discordId) {
+        try {
+            redisTemplate.opsForSet().remove(membersKey(guildId), discordId);
+        } catch (Exception e) {
+            log.warn("Failed to remove member {} from guild {}: {}", discordId, guildId, e.getMessage());
+        }
+    }
+
+    /**
+     * Replace a guild's member set. The new set is built under a temporary key
+     * and swapped in with one RENAME, so readers never see a partial set.
+     */
+    public void replaceMembers(String guildId, Collection<String> discordIds) {
+        String key = membersKey(guildId);
+        if (discordIds.isEmpty()) {
+            removeGuild(guildId);
+            return;
+        }
+
+        try {
+            String syncKey = key + ":sync";
+            List<Object> members = new ArrayList<>(discordIds);
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    ops.delete(syncKey);
+                    for (int from = 0; from < members.size(); from += SYNC_BATCH_SIZE) {
+                        ops.opsForSet().add(syncKey,
+                                members.subList(from, Math.min(from + SYNC_BATCH_SIZE, members.size())).toArray());
+                    }
+                    ops.rename(syncKey, key);
+                    return null;
+                }
+            });
+            log.debug("Synced {} members of guild {}", discordIds.size(), guildId);
+
+        } catch (Exception e) {
+            log.warn("Failed to sync members of guild {}: {}", guildId, e.getMessage());
+        }
+    }
+
+    public void removeGuild(String guildId) {
+        try {
+            redisTemplate.delete(membersKey(guildId));
+        } catch (Exception e) {
+            log.warn("Failed to remove members of guild {}: {}", guildId, e.getMessage());
+        }
+    }
+
+    public String membersKey(String guildId) {
+        return KEY_PREFIX + guildId;
+    }
+}
@@ -0,0 +1,236 @@
+package com.tomabot.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * In-memory hierarchical timing wheel.
+ * Level 0 has one bucket per tick; each higher level covers a whole turn of the level below
+ * and is cascaded down when that turn completes. Scheduling and cancelling are O(1) and never block:
+ * producers hand timeouts to the ticker thread through a lock-free queue, and only the ticker thread
+ * touches the buckets.
+ */
+@Slf4j
+public class HierarchicalTimingWheel<K> {
+
+    private static final int MAX_LEVELS = 4;
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] levelSpans;
+    private final List<ArrayDeque<Timeout<K>>> buckets;
+    private final Executor executor;
+    private final String threadName;
+
+    private final Queue<Timeout<K>> pending = new ConcurrentLinkedQueue<>();
+    private final Map<K, Timeout<K>> timeouts = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private volatile long startMs;
+    private Thread ticker;
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, Executor executor, String threadName) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize at least 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.executor = executor;
+        this.threadName = threadName;
+
+        // spans[level] = number of ticks covered by one full turn of that level
+        List<Long> spans = new ArrayList<>();
+        long span = wheelSize;
+        while (spans.size() < MAX_LEVELS) {
+            spans.add(span);
+            if (span > Long.MAX_VALUE / wheelSize) break;
+            span *= wheelSize;
+        }
+        this.levelSpans = spans.stream().mapToLong(Long::longValue).toArray();
+
+        this.buckets = new ArrayList<>(levelSpans.length * wheelSize);
+        for (int i = 0; i < levelSpans.length * wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Start the ticker thread
+     */
+    public synchronized void start() {
+        if (running) return;
+        startMs = System.currentTimeMillis();
+        currentTick = 0;
+        running = true;
+        ticker = new Thread(this::run, threadName);
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Stop the ticker thread; pending timeouts are dropped
+     */
+    public synchronized void stop() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+            try {
+                ticker.join(tickMs * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ticker = null;
+        }
+    }
+
+    /**
+     * Schedule a task, replacing any pending task registered under the same key
+     */
+    public void schedule(K key, Instant deadline, Runnable task) {
+        Timeout<K> timeout = new Timeout<>(key, deadline.toEpochMilli(), task);
+        Timeout<K> previous = timeouts.put(key, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        pending.add(timeout);
+    }
+
+    /**
+     * Cancel the task registered under a key
+     */
+    public boolean cancel(K key) {
+        Timeout<K> timeout = timeouts.remove(key);
+        if (timeout == null) {
+            return false;
+        }
+        timeout.cancelled = true;
+        return true;
+    }
+
+    /**
+     * Number of pending (not yet fired, not cancelled) timeouts
+     */
+    public int size() {
+        return timeouts.size();
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickAt = startMs + (currentTick + 1) * tickMs;
+            long sleepMs = nextTickAt - System.currentTimeMillis();
+            if (sleepMs > 0) {
+                try {
+                    Thread.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    if (!running) break;
+                }
+                continue;
+            }
+
+            try {
+                advance();
+            } catch (Exception e) {
+                log.error("Timing wheel tick {} failed", currentTick, e);
+            }
+        }
+    }
+
+    private void advance() {
+        currentTick++;
+
+        List<Timeout<K>> expired = new ArrayList<>();
+
+        // Hand over timeouts scheduled since the previous tick
+        Timeout<K> added;
+        while ((added = pending.poll()) != null) {
+            place(added, expired);
+        }
+
+        // Cascade higher levels whose slot just came around
+        long quotient = currentTick;
+        for (int level = 1; level < levelSpans.length; level++) {
+            if (quotient % wheelSize != 0) break;
+            quotient /= wheelSize;
+            drain(level, (int) (quotient % wheelSize), expired);
+        }
+
+        drain(0, (int) (currentTick % wheelSize), expired);
+
+        for (Timeout<K> timeout : expired) {
+            fire(timeout);
+        }
+    }
+
+    private void drain(int level, int slot, List<Timeout<K>> expired) {
+        ArrayDeque<Timeout<K>> bucket = buckets.get(level * wheelSize + slot);
+        if (bucket.isEmpty()) return;
+
+        List<Timeout<K>> entries = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Timeout<K> timeout : entries) {
+            place(timeout, expired);
+        }
+    }
+
+    private void place(Timeout<K> timeout, List<Timeout<K>> expired) {
+        if (timeout.cancelled) return;
+
+        long deadlineTick = Math.floorDiv(timeout.deadlineMs - startMs + tickMs - 1, tickMs);
+        long remaining = deadlineTick - currentTick;
+
+        if (remaining <= 0) {
+            expired.add(timeout);
+            return;
+        }
+
+        int level = 0;
+        while (level < levelSpans.length - 1 && remaining >= levelSpans[level]) {
+            level++;
+        }
+
+        // Beyond the top level: park in its farthest slot and re-place on cascade
+        long slotTick = remaining >= levelSpans[level]
+                ? currentTick + levelSpans[level] - 1
+                : deadlineTick;
+        long ticksPerSlot = level == 0 ? 1 : levelSpans[level - 1];
+        int slot = (int) ((slotTick / ticksPerSlot) % wheelSize);
+
+        buckets.get(level * wheelSize + slot).add(timeout);
+    }
+
+    private void fire(Timeout<K> timeout) {
+        if (timeout.cancelled || !timeouts.remove(timeout.key, timeout)) {
+            return;
+        }
+
+        try {
+            executor.execute(timeout.task);
+        } catch (RejectedExecutionException e) {
+            log.error("Timing wheel task {} rejected: {}", timeout.key, e.getMessage());
+        }
+    }
+
+    private static final class Timeout<K> {
+        private final K key;
+        private final long deadlineMs;
+        private final Runnable task;
+        private volatile boolean cancelled;
+
+        private Timeout(K key, long deadlineMs, Runnable task) {
+            this.key = key;
+            this.deadlineMs = deadlineMs;
+            this.task = task;
+        }
+    }
+}
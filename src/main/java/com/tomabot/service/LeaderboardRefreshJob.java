@@ -15,25 +15,31 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class LeaderboardRefreshJob {
 
+    // Both jobs rebuild the same boards: at midnight, when both fire, only one of them runs
+    private static final String REBUILD_JOB = "leaderboard-rebuild";
+
     private final LeaderboardService leaderboardService;
+    private final ScheduledJobLock jobLock;
 
     /**
      * Refresh global leaderboards every hour
      */
     @Scheduled(cron = "0 0 * * * *") // Every hour at :00
     public void refreshGlobalLeaderboards() {
-        log.info("Starting global leaderboard refresh...");
+        jobLock.runExclusively(REBUILD_JOB, () -> {
+            log.info("Starting global leaderboard refresh...");
 
-        try {
-            for (LeaderboardType type : LeaderboardType.values()) {
-                leaderboardService.rebuildLeaderboard(type, LeaderboardScope.GLOBAL, null);
-            }
+            try {
+                for (LeaderboardType type : LeaderboardType.values()) {
+                    leaderboardService.rebuildLeaderboard(type, LeaderboardScope.GLOBAL, null);
+                }
 
-            log.info("Global leaderboards refreshed successfully");
+                log.info("Global leaderboards refreshed successfully");
 
-        } catch (Exception e) {
-            log.error("Error refreshing global leaderboards", e);
-        }
+            } catch (Exception e) {
+                log.error("Error refreshing global leaderboards", e);
+            }
+        });
     }
 
     /**
@@ -41,18 +47,20 @@ public class LeaderboardRefreshJob {
      */
     @Scheduled(cron = "0 0 0 * * *") // Daily at midnight
     public void cleanupLeaderboards() {
-        log.info("Starting leaderboard cleanup...");
+        jobLock.runExclusively(REBUILD_JOB, () -> {
+            log.info("Starting leaderboard cleanup...");
 
-        try {
-            // Rebuild all leaderboards to remove inactive users
-            for (LeaderboardType type : LeaderboardType.values()) {
-                leaderboardService.rebuildLeaderboard(type, LeaderboardScope.GLOBAL, null);
-            }
+            try {
+                // Rebuild all leaderboards to remove inactive users
+                for (LeaderboardType type : LeaderboardType.values()) {
+                    leaderboardService.rebuildLeaderboard(type, LeaderboardScope.GLOBAL, null);
+                }
 
-            log.info("Leaderboard cleanup completed");
+                log.info("Leaderboard cleanup completed");
 
-        } catch (Exception e) {
-            log.error("Error during leaderboard cleanup", e);
-        }
+            } catch (Exception e) {
+                log.error("Error during leaderboard cleanup", e);
+            }
+        });
     }
 }
\ No newline at end of file
@@ -1,22 +1,36 @@
 package com.tomabot.service;
 
 import com.tomabot.model.dto.LeaderboardEntryDTO;
-import com.tomabot.model.entity.User;
+import com.tomabot.model.dto.LeaderboardProfile;
 import com.tomabot.model.entity.UserStats;
+import com.tomabot.model.enums.LeaderboardPeriod;
 import com.tomabot.model.enums.LeaderboardScope;
 import com.tomabot.model.enums.LeaderboardType;
+import com.tomabot.model.event.SessionsCompletedEvent.CompletedSession;
 import com.tomabot.repository.UserStatsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for managing leaderboards using Redis Sorted Sets
@@ -28,105 +42,199 @@ public class LeaderboardService {
 
     private final RedisTemplate<String, Object> redisTemplate;
     private final UserStatsRepository userStatsRepository;
+    private final BatchJobRunner batchJobRunner;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledJobLock jobLock;
+    private final GuildMemberService guildMemberService;
+
+    // Server boards are snapshots of the global board; this bounds how stale they get
+    @Value("${tomabot.stats.leaderboard.server-board-ttl-seconds:60}")
+    private long serverBoardTtlSeconds;
+
+    // How long a read waits for a missing board that another instance is rebuilding
+    @Value("${tomabot.stats.leaderboard.rebuild-wait-seconds:10}")
+    private long rebuildWaitSeconds;
 
     private static final int TOP_LIMIT = 100; // Cache top 100 users
     private static final long CACHE_TTL_HOURS = 1; // Refresh every hour
+    private static final int UPDATE_BATCH_SIZE = 500;
+    private static final long REBUILD_POLL_MS = 200;
+
+    // KEYS = per board: board, rebuild marker, pending updates. ARGV[1] = pending TTL (s),
+    // ARGV[2] = member count n, ARGV[3..n+2] = members, then n scores per board in KEYS order.
+    // A missing board is skipped: a few members would pass for a complete board, so it is left
+    // for the next read to rebuild from the database. While a board is being rebuilt, updates
+    // are also kept as pending, to be applied to the rebuilt board. Returns the boards updated.
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>("""
+            local n = tonumber(ARGV[2])
+            local updated = 0
+            for i = 1, #KEYS / 3 do
+                local board, rebuilding, pending = KEYS[3 * i - 2], KEYS[3 * i - 1], KEYS[3 * i]
+                local scores, members = {}, {}
+                for j = 1, n do
+                    local member, score = ARGV[2 + j], ARGV[2 + n * i + j]
+                    scores[2 * j - 1], scores[2 * j] = score, member
+                    members[2 * j - 1], members[2 * j] = member, score
+                end
+                if redis.call('EXISTS', board) == 1 then
+                    redis.call('ZADD', board, unpack(scores))
+                    updated = updated + 1
+                end
+                if redis.call('EXISTS', rebuilding) == 1 then
+                    redis.call('HSET', pending, unpack(members))
+                    redis.call('EXPIRE', pending, ARGV[1])
+                end
+            end
+            return updated
+            """, Long.class);
+
+    // KEYS[1] = server board, KEYS[2] = global board, KEYS[3] = guild member set; ARGV[1] = TTL (s).
+    // Member set entries score 1, so weight 0 keeps the global score. Returns the board's size.
+    private static final RedisScript<Long> DERIVE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return redis.call('ZCARD', KEYS[1])
+            end
+            local size = redis.call('ZINTERSTORE', KEYS[1], 2, KEYS[2], KEYS[3], 'WEIGHTS', 1, 0)
+            if size > 0 then
+                redis.call('EXPIRE', KEYS[1], ARGV[1])
+            end
+            return size
+            """, Long.class);
+
+    // KEYS[1] = rebuilt board, KEYS[2] = live board, KEYS[3] = rebuild marker, KEYS[4] = pending
+    // updates; ARGV[1] = TTL (s). Applies the updates made during the rebuild, then swaps the
+    // rebuilt board in, all at once. Returns the size of the new board.
+    private static final RedisScript<Long> SWAP_SCRIPT = new DefaultRedisScript<>("""
+            local pending = redis.call('HGETALL', KEYS[4])
+            for i = 1, #pending, 2 do
+                redis.call('ZADD', KEYS[1], pending[i + 1], pending[i])
+            end
+            local size = redis.call('ZCARD', KEYS[1])
+            if size > 0 then
+                redis.call('EXPIRE', KEYS[1], ARGV[1])
+                redis.call('RENAME', KEYS[1], KEYS[2])
+            else
+                redis.call('DEL', KEYS[2])
+            end
+            redis.call('DEL', KEYS[3], KEYS[4])
+            return size
+            """, Long.class);
 
     /**
-     * Update user's position in all leaderboards
+     * Update the global leaderboards for the given users in a single round trip
      */
     @Transactional(readOnly = true)
-    public void updateUserLeaderboards(User user, String guildId) {
-        UserStats stats = userStatsRepository.findByUser(user).orElse(null);
-        if (stats == null) {
-            log.warn("No stats found for user {}", user.getDiscordId());
+    public void updateLeaderboardsForUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        updateUserLeaderboards(userStatsRepository.findWithUserByUserIdIn(userIds));
+    }
+
+    /**
+     * Update the global leaderboards for a batch of users, one script call per
+     * {@value #UPDATE_BATCH_SIZE} users
+     */
+    public void updateUserLeaderboards(Collection<UserStats> statsBatch) {
+        if (statsBatch.isEmpty()) {
             return;
         }
 
         try {
-            String userId = user.getDiscordId();
-
-            // Update global leaderboards
-            updateLeaderboard(LeaderboardType.LEVEL, LeaderboardScope.GLOBAL, null,
-                    userId, stats.getLevel());
-            updateLeaderboard(LeaderboardType.XP, LeaderboardScope.GLOBAL, null,
-                    userId, stats.getTotalXpEarned());
-            updateLeaderboard(LeaderboardType.SESSIONS, LeaderboardScope.GLOBAL, null,
-                    userId, stats.getTotalSessionsCompleted());
-            updateLeaderboard(LeaderboardType.FOCUS_TIME, LeaderboardScope.GLOBAL, null,
-                    userId, stats.getTotalFocusMinutes());
-            updateLeaderboard(LeaderboardType.STREAK, LeaderboardScope.GLOBAL, null,
-                    userId, stats.getCurrentStreak());
-            updateLeaderboard(LeaderboardType.TASKS, LeaderboardScope.GLOBAL, null,
-                    userId, stats.getTotalTasksCompleted());
-            updateLeaderboard(LeaderboardType.ACHIEVEMENTS, LeaderboardScope.GLOBAL, null,
-                    userId, stats.getAchievementsCount());
-
-            // Update server leaderboards if guildId provided
-            if (guildId != null) {
-                updateLeaderboard(LeaderboardType.LEVEL, LeaderboardScope.SERVER, guildId,
-                        userId, stats.getLevel());
-                updateLeaderboard(LeaderboardType.XP, LeaderboardScope.SERVER, guildId,
-                        userId, stats.getTotalXpEarned());
-                updateLeaderboard(LeaderboardType.SESSIONS, LeaderboardScope.SERVER, guildId,
-                        userId, stats.getTotalSessionsCompleted());
-                updateLeaderboard(LeaderboardType.FOCUS_TIME, LeaderboardScope.SERVER, guildId,
-                        userId, stats.getTotalFocusMinutes());
-                updateLeaderboard(LeaderboardType.STREAK, LeaderboardScope.SERVER, guildId,
-                        userId, stats.getCurrentStreak());
-                updateLeaderboard(LeaderboardType.TASKS, LeaderboardScope.SERVER, guildId,
-                        userId, stats.getTotalTasksCompleted());
-                updateLeaderboard(LeaderboardType.ACHIEVEMENTS, LeaderboardScope.SERVER, guildId,
-                        userId, stats.getAchievementsCount());
+            List<UserStats> all = List.copyOf(statsBatch);
+            for (int from = 0; from < all.size(); from += UPDATE_BATCH_SIZE) {
+                updateBoards(all.subList(from, Math.min(from + UPDATE_BATCH_SIZE, all.size())));
             }
 
-            log.debug("Updated leaderboards for user {}", userId);
+            log.debug("Updated leaderboards for {} users", statsBatch.size());
 
         } catch (Exception e) {
-            log.error("Failed to update leaderboards for user {}", user.getDiscordId(), e);
+            log.error("Failed to update leaderboards for batch of {} users", statsBatch.size(), e);
         }
     }
 
     /**
-     * Update a specific leaderboard entry
+     * Set the users' scores on every global board with one script call
      */
-    private void updateLeaderboard(LeaderboardType type, LeaderboardScope scope,
-                                   String guildId, String userId, Number score) {
-        try {
-            String key = buildRedisKey(type, scope, guildId);
-            double scoreValue = score != null ? score.doubleValue() : 0.0;
+    private void updateBoards(List<UserStats> statsBatch) {
+        List<String> keys = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        args.add(TimeUnit.HOURS.toSeconds(CACHE_TTL_HOURS));
+        args.add(statsBatch.size());
+        statsBatch.forEach(stats -> args.add(stats.getUser().getDiscordId()));
+
+        for (LeaderboardType type : LeaderboardType.values()) {
+            String key = buildRedisKey(type, LeaderboardScope.GLOBAL, null);
+            keys.addAll(List.of(key, rebuildingKey(key), pendingKey(key)));
+            statsBatch.forEach(stats -> args.add(getScoreForType(type, stats)));
+        }
+
+        // Arguments go through the template's value serializer, so members match those written by ZADD
+        meterRegistry.timer("tomabot.leaderboard.update").record(() ->
+                redisTemplate.execute(UPDATE_SCRIPT, keys, args.toArray()));
+    }
 
-            redisTemplate.opsForZSet().add(key, userId, scoreValue);
+    /**
+     * Add completed sessions to the boards of the week and month each one ended in, with ZINCRBY,
+     * in a single pipeline. A session recorded late, e.g. redelivered after a restart, still counts
+     * for its own window. These boards are only ever incremented, never rebuilt from the
+     * database; each expires once the window after its own has closed.
+     */
+    public void recordCompletedSessions(Collection<CompletedSession> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        Map<String, Instant> expiries = new HashMap<>();
+        for (CompletedSession session : sessions) {
+            for (LeaderboardPeriod period : LeaderboardPeriod.live()) {
+                Instant expiresAt = period.expiresAt(session.endTime());
+                expiries.put(periodKey(LeaderboardType.SESSIONS, period, session.endTime()), expiresAt);
+                expiries.put(periodKey(LeaderboardType.FOCUS_TIME, period, session.endTime()), expiresAt);
+            }
+        }
 
-            // Set expiration
-            redisTemplate.expire(key, CACHE_TTL_HOURS, TimeUnit.HOURS);
+        try {
+            meterRegistry.timer("tomabot.leaderboard.increment").record(() ->
+                    redisTemplate.executePipelined(new SessionCallback<Object>() {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public <K, V> Object execute(RedisOperations<K, V> operations) {
+                            RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                            for (CompletedSession session : sessions) {
+                                for (LeaderboardPeriod period : LeaderboardPeriod.live()) {
+                                    Instant at = session.endTime();
+                                    ops.opsForZSet().incrementScore(periodKey(LeaderboardType.SESSIONS, period, at),
+                                            session.discordId(), 1);
+                                    ops.opsForZSet().incrementScore(periodKey(LeaderboardType.FOCUS_TIME, period, at),
+                                            session.discordId(), session.durationMinutes());
+                                }
+                            }
+                            expiries.forEach((key, expiresAt) -> ops.expireAt(key, expiresAt));
+                            return null;
+                        }
+                    }));
+
+            log.debug("Recorded {} sessions on the periodic leaderboards", sessions.size());
 
         } catch (Exception e) {
-            log.warn("Failed to update leaderboard {} for user {}: {}",
-                    type.getKey(), userId, e.getMessage());
+            log.error("Failed to record {} sessions on the periodic leaderboards", sessions.size(), e);
         }
     }
 
     /**
-     * Get top N entries from leaderboard
+     * Get top N entries from leaderboard. A missing all-time board is rebuilt from the database;
+     * a missing periodic board just has no entries yet.
      */
-    @Transactional(readOnly = true)
     public List<LeaderboardEntryDTO> getTopLeaderboard(LeaderboardType type,
+                                                       LeaderboardPeriod period,
                                                        LeaderboardScope scope,
                                                        String guildId,
                                                        int limit) {
         try {
-            String key = buildRedisKey(type, scope, guildId);
-
             // Get top entries (reverse order = highest first)
-            Set<ZSetOperations.TypedTuple<Object>> topEntries =
-                    redisTemplate.opsForZSet().reverseRangeWithScores(key, 0, limit - 1);
-
-            if (topEntries == null || topEntries.isEmpty()) {
-                log.debug("No entries in leaderboard {}, rebuilding...", key);
-                rebuildLeaderboard(type, scope, guildId);
-                topEntries = redisTemplate.opsForZSet().reverseRangeWithScores(key, 0, limit - 1);
-            }
+            Set<ZSetOperations.TypedTuple<Object>> topEntries = redisTemplate.opsForZSet()
+                    .reverseRangeWithScores(boardKey(type, period, scope, guildId), 0, limit - 1);
 
             return buildLeaderboardEntries(topEntries, type, null);
 
@@ -139,13 +247,13 @@ public class LeaderboardService {
     /**
      * Get user's rank and surrounding entries
      */
-    @Transactional(readOnly = true)
     public LeaderboardEntryDTO getUserRank(LeaderboardType type,
+                                           LeaderboardPeriod period,
                                            LeaderboardScope scope,
                                            String guildId,
                                            String userId) {
         try {
-            String key = buildRedisKey(type, scope, guildId);
+            String key = boardKey(type, period, scope, guildId);
 
             Long rank = redisTemplate.opsForZSet().reverseRank(key, userId);
             Double score = redisTemplate.opsForZSet().score(key, userId);
@@ -155,20 +263,22 @@ public class LeaderboardService {
             }
 
             // Fetch user stats for additional info
-            UserStats stats = userStatsRepository.findByDiscordId(userId).orElse(null);
+            LeaderboardProfile profile = userStatsRepository.findLeaderboardProfiles(List.of(userId)).stream()
+                    .findFirst()
+                    .orElse(null);
 
             return LeaderboardEntryDTO.builder()
                     .rank(rank.intValue() + 1) // Redis rank is 0-based
                     .discordId(userId)
-                    .username(stats != null ? stats.getUser().getUsername() : "Unknown")
+                    .username(profile != null ? profile.username() : "Unknown")
                     .score(score)
-                    .level(stats != null ? stats.getLevel() : 0)
-                    .totalXP(stats != null ? stats.getTotalXpEarned() : 0)
-                    .sessions(stats != null ? stats.getTotalSessionsCompleted() : 0)
-                    .focusMinutes(stats != null ? stats.getTotalFocusMinutes() : 0)
-                    .streak(stats != null ? stats.getCurrentStreak() : 0)
-                    .tasks(stats != null ? stats.getTotalTasksCompleted() : 0)
-                    .achievements(stats != null ? stats.getAchievementsCount() : 0)
+                    .level(profile != null ? profile.level() : 0)
+                    .totalXP(profile != null ? profile.totalXp() : 0)
+                    .sessions(profile != null ? profile.sessions() : 0)
+                    .focusMinutes(profile != null ? profile.focusMinutes() : 0)
+                    .streak(profile != null ? profile.streak() : 0)
+                    .tasks(profile != null ? profile.tasks() : 0)
+                    .achievements(profile != null ? profile.achievements() : 0)
                     .isCurrentUser(true)
                     .build();
 
@@ -179,45 +289,121 @@ public class LeaderboardService {
     }
 
     /**
-     * Rebuild leaderboard from database
+     * Rebuild leaderboard from database. user_stats is streamed in chunks into a shadow key
+     * that then replaces the live board with one RENAME, so readers never see a partial board.
+     * Updates made while the rebuild runs are applied to the shadow key right before the swap.
+     * Only one rebuild of a board runs at a time across instances; a concurrent request is skipped.
+     *
+     * @return whether the rebuild ran here
      */
-    @Transactional(readOnly = true)
-    public void rebuildLeaderboard(LeaderboardType type, LeaderboardScope scope, String guildId) {
-        try {
-            String key = buildRedisKey(type, scope, guildId);
-
-            // Clear existing data
+    public boolean rebuildLeaderboard(LeaderboardType type, LeaderboardScope scope, String guildId) {
+        String key = buildRedisKey(type, scope, guildId);
+        if (scope == LeaderboardScope.SERVER) {
+            // Derived from the global board: dropping it is enough for the next read to derive it again
             redisTemplate.delete(key);
+            return true;
+        }
+        boolean ran = jobLock.runExclusively("leaderboard-rebuild:" + key, () -> {
+            String shadowKey = key + ":rebuild";
+            try {
+                // Marks the rebuild for the update script before any row is read
+                redisTemplate.delete(List.of(shadowKey, pendingKey(key)));
+                redisTemplate.opsForValue().set(rebuildingKey(key), 1, CACHE_TTL_HOURS, TimeUnit.HOURS);
 
-            // Fetch all user stats
-            List<UserStats> allStats = userStatsRepository.findAll();
+                batchJobRunner.run("leaderboard-rebuild:" + key, "user_stats", false,
+                        ids -> addToLeaderboard(shadowKey, type, userStatsRepository.findWithUserByIdIn(ids)));
 
-            // Add to sorted set
-            for (UserStats stats : allStats) {
-                double score = getScoreForType(type, stats);
-                if (score > 0) {
-                    redisTemplate.opsForZSet().add(key, stats.getUser().getDiscordId(), score);
-                }
+                Long size = redisTemplate.execute(SWAP_SCRIPT,
+                        List.of(shadowKey, key, rebuildingKey(key), pendingKey(key)),
+                        TimeUnit.HOURS.toSeconds(CACHE_TTL_HOURS));
+
+                log.info("Rebuilt leaderboard {} with {} entries", key, size);
+
+            } catch (Exception e) {
+                log.error("Error rebuilding leaderboard {}: {}", type.getKey(), e.getMessage());
+                redisTemplate.delete(List.of(shadowKey, rebuildingKey(key), pendingKey(key)));
             }
+        });
+        if (!ran) {
+            log.debug("Leaderboard {} is being rebuilt elsewhere, skipping", key);
+        }
+        return ran;
+    }
+
+    /**
+     * Make sure a global all-time board exists: rebuild it if missing, or if another
+     * instance is rebuilding it, wait a bounded time for that rebuild to finish
+     */
+    private void ensureGlobalBoard(LeaderboardType type) {
+        String key = buildRedisKey(type, LeaderboardScope.GLOBAL, null);
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+            return;
+        }
 
-            // Set expiration
-            redisTemplate.expire(key, CACHE_TTL_HOURS, TimeUnit.HOURS);
+        log.debug("No entries in leaderboard {}, rebuilding...", key);
+        if (rebuildLeaderboard(type, LeaderboardScope.GLOBAL, null)) {
+            return;
+        }
 
-            log.info("Rebuilt leaderboard {} with {} entries", key, allStats.size());
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(rebuildWaitSeconds);
+        try {
+            while (Boolean.TRUE.equals(redisTemplate.hasKey(rebuildingKey(key)))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(REBUILD_POLL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Error rebuilding leaderboard {}: {}", type.getKey(), e.getMessage());
+    /**
+     * Add the users with a positive score to a leaderboard in a single pipeline
+     *
+     * @return number of entries added
+     */
+    private int addToLeaderboard(String key, LeaderboardType type, List<UserStats> statsChunk) {
+        List<UserStats> ranked = statsChunk.stream()
+                .filter(stats -> getScoreForType(type, stats) > 0)
+                .toList();
+        if (ranked.isEmpty()) {
+            return 0;
         }
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (UserStats stats : ranked) {
+                    ops.opsForZSet().add(key, stats.getUser().getDiscordId(), getScoreForType(type, stats));
+                }
+                // Carried over by RENAME, and clears the shadow key of a rebuild that died
+                ops.expire(key, CACHE_TTL_HOURS, TimeUnit.HOURS);
+                return null;
+            }
+        });
+        return ranked.size();
     }
 
     /**
-     * Build leaderboard entries from Redis results
+     * Build leaderboard entries from Redis results, with the profiles of every member
+     * read in one query
      */
     private List<LeaderboardEntryDTO> buildLeaderboardEntries(
             Set<ZSetOperations.TypedTuple<Object>> entries,
             LeaderboardType type,
             String currentUserId) {
 
+        if (entries == null || entries.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> memberIds = entries.stream()
+                .map(entry -> entry.getValue().toString())
+                .toList();
+        Map<String, LeaderboardProfile> profiles = userStatsRepository.findLeaderboardProfiles(memberIds).stream()
+                .collect(Collectors.toMap(LeaderboardProfile::discordId, Function.identity()));
+
         List<LeaderboardEntryDTO> result = new ArrayList<>();
         int rank = 1;
 
@@ -225,21 +411,21 @@ public class LeaderboardService {
             String userId = entry.getValue().toString();
             Double score = entry.getScore();
 
-            UserStats stats = userStatsRepository.findByDiscordId(userId).orElse(null);
+            LeaderboardProfile profile = profiles.get(userId);
 
-            if (stats != null) {
+            if (profile != null) {
                 LeaderboardEntryDTO dto = LeaderboardEntryDTO.builder()
                         .rank(rank)
                         .discordId(userId)
-                        .username(stats.getUser().getUsername())
+                        .username(profile.username())
                         .score(score)
-                        .level(stats.getLevel())
-                        .totalXP(stats.getTotalXpEarned())
-                        .sessions(stats.getTotalSessionsCompleted())
-                        .focusMinutes(stats.getTotalFocusMinutes())
-                        .streak(stats.getCurrentStreak())
-                        .tasks(stats.getTotalTasksCompleted())
-                        .achievements(stats.getAchievementsCount())
+                        .level(profile.level())
+                        .totalXP(profile.totalXp())
+                        .sessions(profile.sessions())
+                        .focusMinutes(profile.focusMinutes())
+                        .streak(profile.streak())
+                        .tasks(profile.tasks())
+                        .achievements(profile.achievements())
                         .isCurrentUser(userId.equals(currentUserId))
                         .build();
 
@@ -267,6 +453,38 @@ public class LeaderboardService {
         };
     }
 
+    /**
+     * Key to read a board from, for every read entry point. A missing all-time global board is
+     * rebuilt first. A server board is the global board of the same period intersected with
+     * the guild's member set, derived by one script and kept for a short TTL.
+     */
+    private String boardKey(LeaderboardType type, LeaderboardPeriod period, LeaderboardScope scope, String guildId) {
+        if (!period.isWindowed()) {
+            ensureGlobalBoard(type);
+        }
+
+        Instant now = Instant.now();
+        String globalKey = periodKey(type, period, now);
+        if (scope != LeaderboardScope.SERVER || guildId == null) {
+            return globalKey;
+        }
+
+        String key = buildRedisKey(type, scope, guildId) + period.getRedisKeySuffix(now);
+        redisTemplate.execute(DERIVE_SCRIPT, List.of(key, globalKey, guildMemberService.membersKey(guildId)),
+                serverBoardTtlSeconds);
+        return key;
+    }
+
+    // Present while a board is being rebuilt
+    private String rebuildingKey(String key) {
+        return key + ":rebuilding";
+    }
+
+    // Updates made to a board while it is being rebuilt, member to score
+    private String pendingKey(String key) {
+        return key + ":rebuild:pending";
+    }
+
     /**
      * Build Redis key for leaderboard
      */
@@ -277,13 +495,20 @@ public class LeaderboardService {
         return String.format("leaderboard:%s:%s", scopeKey, type.getKey());
     }
 
+    /**
+     * Global board of a period, e.g. {@code leaderboard:global:sessions:week:2026-W42}
+     */
+    private String periodKey(LeaderboardType type, LeaderboardPeriod period, Instant at) {
+        return buildRedisKey(type, LeaderboardScope.GLOBAL, null) + period.getRedisKeySuffix(at);
+    }
+
     /**
      * Get total number of users in leaderboard
      */
-    public Long getLeaderboardSize(LeaderboardType type, LeaderboardScope scope, String guildId) {
+    public Long getLeaderboardSize(LeaderboardType type, LeaderboardPeriod period,
+                                   LeaderboardScope scope, String guildId) {
         try {
-            String key = buildRedisKey(type, scope, guildId);
-            return redisTemplate.opsForZSet().size(key);
+            return redisTemplate.opsForZSet().size(boardKey(type, period, scope, guildId));
         } catch (Exception e) {
             log.error("Error getting leaderboard size: {}", e.getMessage());
             return 0L;
@@ -0,0 +1,213 @@
+package com.tomabot.service;
+
+import com.tomabot.model.dto.LevelUpDTO;
+import com.tomabot.model.entity.Achievement;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.awt.Color;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Notification stage of the reward pipeline: Discord DMs and focus-mode cleanup.
+ * Work runs on its own bounded executor, after the surrounding transaction commits,
+ * and never blocks on Discord.
+ */
+@Service
+@Slf4j
+public class NotificationService {
+
+    private JDA jda;
+    private FocusModeService focusModeService;
+    private MeterRegistry meterRegistry;
+
+    @Value("${tomabot.rewards.notification.threads:2}")
+    private int threads;
+
+    @Value("${tomabot.rewards.notification.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private ExecutorService executor;
+
+    @Autowired
+    public void setJda(@Lazy JDA jda) {
+        this.jda = jda;
+    }
+
+    @Autowired
+    public void setFocusModeService(FocusModeService focusModeService) {
+        this.focusModeService = focusModeService;
+    }
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = StageExecutors.bounded("notification", threads, queueCapacity, meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        StageExecutors.shutdown(executor);
+    }
+
+    /**
+     * Disable focus mode and tell the user their session is complete
+     */
+    public void notifySessionCompleted(String discordId) {
+        EmbedBuilder embed = new EmbedBuilder()
+                .setColor(Color.decode("#38D39F"))
+                .setTitle("🎉 Pomodoro Complete!")
+                .setDescription("""
+                        Great job! Your focus session is complete.
+                        ✅ Focus mode deactivated""")
+                .addField("Time for a break?",
+                        "Use `/start` to begin another session", false)
+                .setFooter("Keep up the great work! 🍅")
+                .setTimestamp(Instant.now());
+
+        dispatch(() -> {
+            focusModeService.disableFocusMode(discordId);
+            sendDirectMessage(discordId, embed.build(), "completion");
+        });
+    }
+
+    /**
+     * Send level-up notification to user via DM
+     */
+    public void notifyLevelUp(String discordId, String username, LevelUpDTO levelUp) {
+        EmbedBuilder embed = new EmbedBuilder()
+                .setColor(getColorForLevel(levelUp.getNewLevel()))
+                .setTitle("🎉 LEVEL UP! 🎉")
+                .setDescription(String.format("""
+                                **Congratulations %s!**
+
+                                "You've reached **Level %d**!""",
+                        username,
+                        levelUp.getNewLevel()))
+                .addField("Previous Level", String.valueOf(levelUp.getPreviousLevel()), true)
+                .addField("New Level", String.valueOf(levelUp.getNewLevel()), true)
+                .addField("Total XP", String.format("%,d XP", levelUp.getTotalXP()), true)
+                .addField("Progress to Next Level",
+                        String.format("%d / %d XP (%d%%)",
+                                levelUp.getXpProgressToNext(),
+                                levelUp.getXpForNextLevel(),
+                                levelUp.getProgressPercentage()),
+                        false);
+
+        if (levelUp.getRewardMessage() != null) {
+            embed.addField("🎁 Reward", levelUp.getRewardMessage(), false);
+        }
+
+        // Add progress bar
+        String progressBar = createXPProgressBar(
+                levelUp.getXpProgressToNext(),
+                levelUp.getXpForNextLevel()
+        );
+        embed.addField("Next Level Progress", progressBar, false);
+
+        embed.setFooter("Keep focusing to earn more XP! 🍅")
+                .setTimestamp(Instant.now());
+
+        dispatch(() -> sendDirectMessage(discordId, embed.build(), "level-up"));
+    }
+
+    /**
+     * Send achievement unlock notification via DM
+     */
+    public void notifyAchievementUnlocked(String discordId, Achievement achievement) {
+        EmbedBuilder embed = new EmbedBuilder()
+                .setColor(Color.decode(achievement.getRarity().getColor()))
+                .setTitle("🏆 ACHIEVEMENT UNLOCKED! 🏆")
+                .setDescription(String.format("""
+                        **%s**
+
+                        %s""",
+                        achievement.getIcon() + " " + achievement.getName(),
+                        achievement.getDescription()))
+                .addField("Rarity", achievement.getRarity().getDisplayName(), true)
+                .addField("XP Reward", String.format("+%d XP", achievement.getTotalXPReward()), true)
+                .setFooter("Keep it up! More achievements await! 🍅")
+                .setTimestamp(Instant.now());
+
+        dispatch(() -> sendDirectMessage(discordId, embed.build(), "achievement"));
+    }
+
+    /**
+     * Run on the notification executor, once the current transaction (if any) has committed
+     */
+    private void dispatch(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(task);
+                }
+            });
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    private void sendDirectMessage(String discordId, MessageEmbed embed, String kind) {
+        try {
+            jda.retrieveUserById(discordId).queue(user ->
+                    user.openPrivateChannel().queue(channel ->
+                            channel.sendMessageEmbeds(embed).queue(
+                                    success -> log.info("Sent {} notification to {}", kind, discordId),
+                                    error -> log.warn("Failed to send {} notification to {}: {}",
+                                            kind, discordId, error.getMessage())
+                            )
+                    ),
+                    error -> log.warn("Could not find Discord user {}: {}", discordId, error.getMessage())
+            );
+        } catch (Exception e) {
+            log.error("Error sending {} notification to {}", kind, discordId, e);
+        }
+    }
+
+    /**
+     * Get color based on level tier
+     */
+    private Color getColorForLevel(int level) {
+        if (level >= 100) return Color.decode("#FFD700"); // Gold
+        if (level >= 75) return Color.decode("#E5E4E2");  // Platinum
+        if (level >= 50) return Color.decode("#C0C0C0");  // Silver
+        if (level >= 25) return Color.decode("#CD7F32");  // Bronze
+        if (level >= 10) return Color.decode("#9966CC");  // Purple
+        return Color.decode("#4ECDC4"); // Cyan
+    }
+
+    /**
+     * Create XP progress bar
+     */
+    private String createXPProgressBar(int current, int target) {
+        int bars = 20;
+        int filled = (int) ((double) current / target * bars);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < bars; i++) {
+            sb.append(i < filled ? "🟩" : "⬜");
+        }
+
+        int percentage = (int) ((double) current / target * 100);
+        sb.append(String.format(" %d%%", percentage));
+
+        return sb.toString();
+    }
+}
@@ -4,18 +4,29 @@ import com.tomabot.model.dto.SessionStatus;
 import com.tomabot.model.entity.PomodoroSession;
 import com.tomabot.model.entity.User;
 import com.tomabot.model.enums.SessionType;
-import com.tomabot.model.enums.XPSource;
+import com.tomabot.model.event.SessionsCompletedEvent;
+import com.tomabot.model.event.SessionsCompletedEvent.CompletedSession;
 import com.tomabot.repository.PomodoroSessionRepository;
+import com.tomabot.repository.RewardJdbcRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Service for managing Pomodoro sessions
@@ -25,60 +36,81 @@ import java.util.concurrent.TimeUnit;
 public class PomodoroService {
 
     private final PomodoroSessionRepository sessionRepository;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
     private final SchedulerService schedulerService;
     private final StatsService statsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RewardJdbcRepository rewardJdbcRepository;
 
-    private ExperienceService experienceService;
-    private AchievementService achievementService;
-    private LeaderboardService leaderboardService;
-
+    /**
+     * Active session snapshot, a hash of the fields below. A claimed key without
+     * a sessionId field belongs to a session whose row is not inserted yet.
+     */
     private static final String ACTIVE_SESSION_KEY = "session:active:";
+    private static final String FIELD_SESSION_ID = "sessionId";
+    private static final String FIELD_START_TIME = "startTime";
+    private static final String FIELD_DURATION = "durationMinutes";
+    private static final String FIELD_TYPE = "sessionType";
+
+    // KEYS[1] = active key, ARGV[1] = TTL (ms), ARGV[2..] = field/value pairs
+    private static final RedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS[1] = active key, ARGV[1] = session ID; no-op if the claim was released meanwhile
+    private static final RedisScript<Long> BIND_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            return redis.call('HSET', KEYS[1], 'sessionId', ARGV[1])
+            """, Long.class);
+
+    // KEYS[1] = active key, ARGV[1] = session ID; deletes the key only if it holds that session
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], 'sessionId') == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
 
     // Constructor avec dépendances obligatoires
     public PomodoroService(PomodoroSessionRepository sessionRepository,
-                           RedisTemplate<String, Object> redisTemplate,
+                           StringRedisTemplate stringRedisTemplate,
                            SchedulerService schedulerService,
-                           StatsService statsService) {
+                           StatsService statsService,
+                           ApplicationEventPublisher eventPublisher,
+                           RewardJdbcRepository rewardJdbcRepository) {
         this.sessionRepository = sessionRepository;
-        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
         this.schedulerService = schedulerService;
         this.statsService = statsService;
-    }
-
-    // Setters pour dépendances circulaires avec @Lazy
-    @Autowired
-    public void setExperienceService(@Lazy ExperienceService experienceService) {
-        this.experienceService = experienceService;
-    }
-
-    @Autowired
-    public void setAchievementService(@Lazy AchievementService achievementService) {
-        this.achievementService = achievementService;
-    }
-
-    @Autowired
-    public void setLeaderboardService(@Lazy LeaderboardService leaderboardService) {
-        this.leaderboardService = leaderboardService;
+        this.eventPublisher = eventPublisher;
+        this.rewardJdbcRepository = rewardJdbcRepository;
     }
 
     /**
-     * Start a new Pomodoro session
+     * Start a new Pomodoro session.
+     * The active-session snapshot is claimed atomically before the insert, so concurrent
+     * /start calls are decided by Redis in one round trip; the partial unique index on
+     * running sessions backs this up when Redis is unavailable.
      */
     @Transactional
     public PomodoroSession startSession(User user, Integer durationMinutes) {
-        // Check if already has active session
-        try {
-            if (hasActiveSession(user)) {
-                throw new IllegalStateException("You already have an active session! Use /stop first.");
-            }
-        } catch (Exception e) {
-            log.warn("Redis check failed, continuing without cache: {}", e.getMessage());
-        }
+        String key = ACTIVE_SESSION_KEY + user.getDiscordId();
+        // Outlive the session slightly so the claim is released by completion, not by expiry
+        Duration claimTtl = Duration.ofMinutes(durationMinutes + 1L);
 
         Instant now = Instant.now();
         Instant endTime = now.plusSeconds(durationMinutes * 60L);
 
+        boolean claimed = claimActiveSession(user, key, claimTtl,
+                snapshot(null, now, durationMinutes, SessionType.FOCUS));
+
         // Create session entity
         PomodoroSession session = PomodoroSession.builder()
                 .user(user)
@@ -89,36 +121,109 @@ public class PomodoroService {
                 .interrupted(false)
                 .build();
 
-        session = sessionRepository.save(session);
+        if (claimed) {
+            // Release the claim if the insert does not commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        releaseActiveSession(key);
+                    }
+                }
+            });
+        }
 
-        // Store in Redis for quick access
         try {
-            String key = ACTIVE_SESSION_KEY + user.getDiscordId();
-            redisTemplate.opsForValue().set(key, session.getId(), durationMinutes, TimeUnit.MINUTES);
+            session = sessionRepository.saveAndFlush(session);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("You already have an active session! Use /stop first.");
+        }
+
+        // Complete the snapshot with the session ID
+        try {
+            stringRedisTemplate.execute(BIND_SCRIPT, List.of(key), String.valueOf(session.getId()));
         } catch (Exception e) {
             log.warn("Failed to cache session in Redis: {}", e.getMessage());
         }
 
-        // Schedule completion job
-        schedulerService.scheduleSessionCompletion(session.getId(), user.getDiscordId(), endTime);
+        // Schedule completion once the session row is committed
+        Long sessionId = session.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                schedulerService.scheduleSessionCompletion(sessionId, user.getDiscordId(), endTime);
+            }
+        });
 
         log.info("Started session {} for user {}", session.getId(), user.getDiscordId());
         return session;
     }
 
+    /**
+     * Atomically claim the user's active-session slot.
+     *
+     * @return true if the slot was claimed in Redis, false if Redis was unavailable
+     * and the database check let the start through
+     * @throws IllegalStateException if the user already has an active session
+     */
+    private boolean claimActiveSession(User user, String key, Duration ttl, Map<String, String> snapshot) {
+        Long claimed;
+        try {
+            claimed = stringRedisTemplate.execute(CLAIM_SCRIPT, List.of(key), claimArgs(ttl, snapshot));
+        } catch (Exception e) {
+            log.warn("Redis claim failed, checking database for active session: {}", e.getMessage());
+            if (sessionRepository.findByUserAndCompletedAndInterrupted(user, false, false).isPresent()) {
+                throw new IllegalStateException("You already have an active session! Use /stop first.");
+            }
+            return false;
+        }
+
+        if (claimed == null || claimed == 0) {
+            throw new IllegalStateException("You already have an active session! Use /stop first.");
+        }
+        return true;
+    }
+
+    private void releaseActiveSession(String key) {
+        try {
+            stringRedisTemplate.delete(key);
+        } catch (Exception e) {
+            log.warn("Failed to release session claim in Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop a snapshot only if it still describes the given session, so a session
+     * started meanwhile keeps its claim
+     */
+    private void releaseActiveSession(String key, Long sessionId) {
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(key), String.valueOf(sessionId));
+        } catch (Exception e) {
+            log.warn("Failed to release stale session snapshot in Redis: {}", e.getMessage());
+        }
+    }
+
     /**
      * Stop an active session (interrupt)
      */
     @Transactional
     public void stopSession(User user) {
-        Long sessionId = getActiveSessionId(user);
+        String key = ACTIVE_SESSION_KEY + user.getDiscordId();
+        Long snapshotId = getActiveSessionId(user);
 
-        if (sessionId == null) {
-            throw new IllegalStateException("No active session found!");
+        // Locked like a completion, so /stop and the timer cannot both end the session
+        PomodoroSession session = lockRunningSession(snapshotId);
+
+        if (session == null && snapshotId != null) {
+            // The snapshot outlived its session (e.g. rebuilt just before completion): the row decides
+            releaseActiveSession(key, snapshotId);
+            session = lockRunningSession(findActiveSessionId(user));
         }
 
-        PomodoroSession session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new IllegalStateException("Session not found!"));
+        if (session == null) {
+            throw new IllegalStateException("No active session found!");
+        }
 
         session.interrupt();
         sessionRepository.save(session);
@@ -128,138 +233,218 @@ public class PomodoroService {
 
         // Remove from Redis
         try {
-            String key = ACTIVE_SESSION_KEY + user.getDiscordId();
-            redisTemplate.delete(key);
+            stringRedisTemplate.delete(key);
         } catch (Exception e) {
             log.warn("Failed to remove session from Redis: {}", e.getMessage());
         }
 
         // Cancel scheduled job
-        schedulerService.cancelSessionJob(sessionId);
+        schedulerService.cancelSessionJob(session.getId(), user.getDiscordId());
 
-        log.info("Stopped session {} for user {}", sessionId, user.getDiscordId());
+        log.info("Stopped session {} for user {}", session.getId(), user.getDiscordId());
+    }
+
+    /**
+     * Lock a session row, if it is still running
+     */
+    private PomodoroSession lockRunningSession(Long sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        return sessionRepository.findByIdForUpdate(sessionId)
+                .filter(session -> !Boolean.TRUE.equals(session.getCompleted())
+                        && !Boolean.TRUE.equals(session.getInterrupted()))
+                .orElse(null);
     }
 
     /**
      * Complete a session (called by scheduler)
+     *
+     * @return true if the session was completed by this call, false if it was
+     * missing or already completed/interrupted
      */
     @Transactional
-    public void completeSession(Long sessionId, String discordId) {
-        PomodoroSession session = sessionRepository.findById(sessionId)
-                .orElse(null);
+    public boolean completeSession(Long sessionId, String discordId) {
+        return completeSessions(Map.of(sessionId, discordId)).contains(sessionId);
+    }
 
-        if (session == null) {
-            log.warn("Session {} not found for completion", sessionId);
-            return;
+    /**
+     * Complete a batch of sessions whose timers fired together, in one transaction:
+     * sessions and stats are loaded in bulk, sessions are written in one batch and the
+     * active-session keys are removed with one DEL. Rewards are recorded as pending and
+     * granted by the RewardPipeline after commit.
+     * Session rows are locked while they are checked, so a session whose timer fires on
+     * several replicas (each rebuilds its timers on startup) or is stopped meanwhile is
+     * ended exactly once: the later transaction waits, then sees it ended and skips it.
+     *
+     * @param sessions session ID to Discord ID
+     * @return IDs of the sessions completed by this call
+     */
+    @Transactional
+    public Set<Long> completeSessions(Map<Long, String> sessions) {
+        List<PomodoroSession> toComplete = new ArrayList<>();
+
+        for (PomodoroSession session : sessionRepository.findAllWithUserByIdInForUpdate(sessions.keySet())) {
+            // Timers may fire twice (recovery after restart, late cancel): only complete once
+            if (Boolean.TRUE.equals(session.getCompleted()) || Boolean.TRUE.equals(session.getInterrupted())) {
+                log.debug("Session {} already ended, skipping completion", session.getId());
+                continue;
+            }
+            session.complete();
+            toComplete.add(session);
         }
 
-        session.complete();
-        sessionRepository.save(session);
+        if (toComplete.size() < sessions.size()) {
+            log.debug("{} of {} sessions missing or already ended", sessions.size() - toComplete.size(), sessions.size());
+        }
+        if (toComplete.isEmpty()) {
+            return Set.of();
+        }
+
+        sessionRepository.saveAll(toComplete);
 
         // Update stats after completion
-        statsService.updateStatsAfterSession(session.getUser(), session);
+        statsService.updateStatsAfterSessions(toComplete);
+
+        List<CompletedSession> completed = toComplete.stream()
+                .map(session -> new CompletedSession(session.getId(), session.getUser().getId(),
+                        session.getUser().getDiscordId(), session.getDurationMinutes(), session.getStartTime(),
+                        session.getEndTime()))
+                .toList();
 
-        // Grant XP and check achievements
-        grantSessionRewards(session.getUser(), session);
+        // XP, achievements, leaderboards and notifications follow once this commits;
+        // the pending rows keep the rewards owed if that never happens
+        rewardJdbcRepository.insertPendingSessionRewards(completed);
+        eventPublisher.publishEvent(new SessionsCompletedEvent(completed));
 
         // Remove from Redis
         try {
-            String key = ACTIVE_SESSION_KEY + discordId;
-            redisTemplate.delete(key);
+            stringRedisTemplate.delete(toComplete.stream()
+                    .map(session -> ACTIVE_SESSION_KEY + session.getUser().getDiscordId())
+                    .toList());
         } catch (Exception e) {
-            log.warn("Failed to remove session from Redis: {}", e.getMessage());
+            log.warn("Failed to remove sessions from Redis: {}", e.getMessage());
         }
 
-        log.info("Completed session {} for user {}", sessionId, discordId);
+        Set<Long> completedIds = toComplete.stream()
+                .map(PomodoroSession::getId)
+                .collect(Collectors.toSet());
+        log.info("Completed {} sessions", completedIds.size());
+        return completedIds;
     }
 
     /**
-     * Grant XP, check achievements, and update leaderboards after session completion
+     * Get session status for user.
+     * Answered from the Redis snapshot alone; the database is only read when
+     * the snapshot is missing, and the snapshot is rebuilt from it.
      */
-    private void grantSessionRewards(User user, PomodoroSession session) {
-        try {
-            // Base XP = duration in minutes (25 min = 25 XP)
-            int xpAmount = session.getDurationMinutes();
-
-            // Grant session XP
-            if (experienceService != null) {
-                experienceService.grantXP(user, XPSource.SESSION_COMPLETED, xpAmount, session.getId());
-
-                // Check for first session bonus
-                if (experienceService.shouldGrantFirstSessionBonus(user)) {
-                    experienceService.grantXP(user, XPSource.FIRST_SESSION_OF_DAY, session.getId());
-                    log.info("Granted first session bonus to user {}", user.getDiscordId());
-                }
-            }
-
-            // Check for achievement unlocks
-            if (achievementService != null) {
-                achievementService.checkAndUnlockAchievements(user);
-            }
+    public SessionStatus getSessionStatus(String discordId) {
+        String key = ACTIVE_SESSION_KEY + discordId;
 
-            // Update leaderboards
-            if (leaderboardService != null) {
-                leaderboardService.updateUserLeaderboards(user, null);
+        try {
+            Map<Object, Object> snapshot = stringRedisTemplate.opsForHash().entries(key);
+            if (snapshot.containsKey(FIELD_SESSION_ID)) {
+                return buildStatus(
+                        Long.parseLong(snapshot.get(FIELD_SESSION_ID).toString()),
+                        Instant.ofEpochMilli(Long.parseLong(snapshot.get(FIELD_START_TIME).toString())),
+                        Integer.parseInt(snapshot.get(FIELD_DURATION).toString()),
+                        SessionType.valueOf(snapshot.get(FIELD_TYPE).toString()));
             }
-
         } catch (Exception e) {
-            log.error("Failed to grant session rewards to user {}", user.getDiscordId(), e);
+            log.warn("Failed to read session snapshot from Redis: {}", e.getMessage());
         }
-    }
 
-    /**
-     * Get session status for user
-     */
-    public SessionStatus getSessionStatus(User user) {
-        Long sessionId = getActiveSessionId(user);
+        PomodoroSession session = sessionRepository.findActiveByDiscordId(discordId).orElse(null);
 
-        if (sessionId == null) {
+        if (session == null) {
             return null;
         }
 
-        PomodoroSession session = sessionRepository.findById(sessionId).orElse(null);
+        rewarmSnapshot(key, session);
 
-        if (session == null) {
-            return null;
-        }
+        return buildStatus(session.getId(), session.getStartTime(),
+                session.getDurationMinutes(), session.getSessionType());
+    }
 
+    private SessionStatus buildStatus(Long sessionId, Instant startTime, int durationMinutes, SessionType type) {
         Instant now = Instant.now();
-        long elapsedSeconds = Duration.between(session.getStartTime(), now).getSeconds();
-        long totalSeconds = session.getDurationMinutes() * 60L;
+        long elapsedSeconds = Duration.between(startTime, now).getSeconds();
+        long totalSeconds = durationMinutes * 60L;
         long remainingSeconds = totalSeconds - elapsedSeconds;
 
         if (remainingSeconds < 0) remainingSeconds = 0;
 
         return SessionStatus.builder()
-                .sessionId(session.getId())
-                .totalMinutes(session.getDurationMinutes())
+                .sessionId(sessionId)
+                .sessionType(type)
+                .totalMinutes(durationMinutes)
                 .elapsedMinutes((int) (elapsedSeconds / 60))
                 .remainingMinutes((int) (remainingSeconds / 60))
-                .startTime(session.getStartTime())
+                .startTime(startTime)
                 .build();
     }
 
     /**
-     * Check if user has an active session
+     * Recreate a missing snapshot from the session row, unless another caller already did
      */
-    public boolean hasActiveSession(User user) {
-        return getActiveSessionId(user) != null;
+    private void rewarmSnapshot(String key, PomodoroSession session) {
+        Instant endTime = session.getStartTime().plusSeconds(session.getDurationMinutes() * 60L);
+        Duration ttl = Duration.between(Instant.now(), endTime).plusMinutes(1);
+        if (ttl.isNegative() || ttl.isZero()) {
+            ttl = Duration.ofMinutes(1);
+        }
+
+        try {
+            stringRedisTemplate.execute(CLAIM_SCRIPT, List.of(key), claimArgs(ttl, snapshot(
+                    session.getId(), session.getStartTime(), session.getDurationMinutes(), session.getSessionType())));
+        } catch (Exception e) {
+            log.warn("Failed to rebuild session snapshot in Redis: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, String> snapshot(Long sessionId, Instant startTime, int durationMinutes, SessionType type) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        if (sessionId != null) {
+            fields.put(FIELD_SESSION_ID, String.valueOf(sessionId));
+        }
+        fields.put(FIELD_START_TIME, String.valueOf(startTime.toEpochMilli()));
+        fields.put(FIELD_DURATION, String.valueOf(durationMinutes));
+        fields.put(FIELD_TYPE, type.name());
+        return fields;
+    }
+
+    private Object[] claimArgs(Duration ttl, Map<String, String> snapshot) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttl.toMillis()));
+        snapshot.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        return args.toArray();
     }
 
     /**
-     * Get active session ID for user
+     * Get active session ID for user, from the Redis snapshot when there is one
      */
     private Long getActiveSessionId(User user) {
         try {
             String key = ACTIVE_SESSION_KEY + user.getDiscordId();
-            Object value = redisTemplate.opsForValue().get(key);
-            return value != null ? Long.parseLong(value.toString()) : null;
+            Object sessionId = stringRedisTemplate.opsForHash().get(key, FIELD_SESSION_ID);
+            if (sessionId != null) {
+                return Long.parseLong(sessionId.toString());
+            }
+            // Missing snapshot (expired claim, eviction) or claimed but not inserted yet:
+            // the row is the source of truth
+            return findActiveSessionId(user);
         } catch (Exception e) {
             log.warn("Redis unavailable, checking database for active session");
-            // Fallback: check database
-            return sessionRepository.findByUserAndCompletedAndInterrupted(user, false, false)
-                    .map(PomodoroSession::getId)
-                    .orElse(null);
+            return findActiveSessionId(user);
         }
     }
-}
\ No newline at end of file
+
+    private Long findActiveSessionId(User user) {
+        return sessionRepository.findByUserAndCompletedAndInterrupted(user, false, false)
+                .map(PomodoroSession::getId)
+                .orElse(null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.tomabot.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Quartz backend: one persistent JDBC job per session
+ */
+@Service
+@ConditionalOnProperty(prefix = "tomabot.scheduler", name = "backend", havingValue = "quartz")
+@RequiredArgsConstructor
+@Slf4j
+public class QuartzSchedulerService implements SchedulerService {
+
+    private final Scheduler scheduler;
+
+    @Override
+    public void scheduleSessionCompletion(Long sessionId, String discordId, Instant endTime) {
+        try {
+            JobDetail job = JobBuilder.newJob(SessionCompletionJob.class)
+                    .withIdentity("session-" + sessionId, "pomodoro")
+                    .usingJobData("sessionId", sessionId)
+                    .usingJobData("discordId", discordId)
+                    .build();
+
+            Trigger trigger = TriggerBuilder.newTrigger()
+                    .withIdentity("trigger-session-" + sessionId, "pomodoro")
+                    .startAt(Date.from(endTime))
+                    .build();
+
+            scheduler.scheduleJob(job, trigger);
+            log.debug("Scheduled completion job for session {}", sessionId);
+
+        } catch (SchedulerException e) {
+            log.error("Failed to schedule session completion", e);
+        }
+    }
+
+    @Override
+    public void cancelSessionJob(Long sessionId, String discordId) {
+        try {
+            JobKey jobKey = JobKey.jobKey("session-" + sessionId, "pomodoro");
+            scheduler.deleteJob(jobKey);
+            log.debug("Cancelled job for session {}", sessionId);
+        } catch (SchedulerException e) {
+            log.error("Failed to cancel session job", e);
+        }
+    }
+}
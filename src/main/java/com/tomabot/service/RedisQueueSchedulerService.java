@@ -0,0 +1,174 @@
+package com.tomabot.service;
+
+import com.tomabot.model.entity.PomodoroSession;
+import com.tomabot.repository.PomodoroSessionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distributed backend: pending completions live in a Redis sorted set scored by end time.
+ * Every node polls the set and claims due entries with a Lua script, so each completion
+ * runs on exactly one node. A claim is a lease: the entry is pushed back by the lease
+ * duration and removed once handled, so a node dying mid-completion only delays it.
+ */
+@Service
+@ConditionalOnProperty(prefix = "tomabot.scheduler", name = "backend", havingValue = "redis")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisQueueSchedulerService implements SchedulerService {
+
+    private static final String QUEUE_KEY = "scheduler:completions";
+
+    // KEYS[1] = queue, ARGV[1] = now (ms), ARGV[2] = max entries, ARGV[3] = lease expiry (ms)
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+            for _, member in ipairs(due) do
+                redis.call('ZADD', KEYS[1], 'XX', ARGV[3], member)
+            end
+            return due
+            """, List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PomodoroSessionRepository sessionRepository;
+    private final SessionCompletionHandler sessionCompletionHandler;
+
+    @Value("${tomabot.scheduler.redis.poll-interval-ms:250}")
+    private long pollIntervalMs;
+
+    @Value("${tomabot.scheduler.redis.batch-size:100}")
+    private int batchSize;
+
+    @Value("${tomabot.scheduler.redis.lease-seconds:60}")
+    private long leaseSeconds;
+
+    private ScheduledExecutorService poller;
+
+    @PostConstruct
+    public void start() {
+        poller = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("tomabot-completion-poller-"));
+        poller.scheduleWithFixedDelay(this::pollDueCompletions,
+                pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Redis completion queue started (poll every {} ms)", pollIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdownNow();
+    }
+
+    @Override
+    public void scheduleSessionCompletion(Long sessionId, String discordId, Instant endTime) {
+        try {
+            stringRedisTemplate.opsForZSet().add(QUEUE_KEY, toMember(sessionId, discordId), endTime.toEpochMilli());
+            log.debug("Queued completion for session {} at {}", sessionId, endTime);
+        } catch (Exception e) {
+            log.error("Failed to queue session completion", e);
+        }
+    }
+
+    @Override
+    public void cancelSessionJob(Long sessionId, String discordId) {
+        try {
+            stringRedisTemplate.opsForZSet().remove(QUEUE_KEY, toMember(sessionId, discordId));
+            log.debug("Cancelled completion for session {}", sessionId);
+        } catch (Exception e) {
+            log.error("Failed to cancel session completion", e);
+        }
+    }
+
+    /**
+     * Claim every completion that is due, in batches, and hand it to the completion batcher
+     */
+    void pollDueCompletions() {
+        try {
+            List<String> claimed;
+            do {
+                long now = System.currentTimeMillis();
+                claimed = claim(now, now + TimeUnit.SECONDS.toMillis(leaseSeconds));
+                claimed.forEach(this::complete);
+            } while (claimed.size() >= batchSize);
+
+        } catch (Exception e) {
+            log.warn("Failed to poll completion queue: {}", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> claim(long now, long leaseExpiry) {
+        List<String> claimed = stringRedisTemplate.execute(CLAIM_SCRIPT, List.of(QUEUE_KEY),
+                String.valueOf(now), String.valueOf(batchSize), String.valueOf(leaseExpiry));
+        return claimed != null ? claimed : List.of();
+    }
+
+    private void complete(String member) {
+        int separator = member.indexOf(':');
+        Long sessionId = Long.parseLong(member.substring(0, separator));
+        String discordId = member.substring(separator + 1);
+
+        // Acknowledge only once the batch has committed; a failed batch is retried when the lease expires
+        sessionCompletionHandler.submit(sessionId, discordId).thenRun(() -> {
+            try {
+                stringRedisTemplate.opsForZSet().remove(QUEUE_KEY, member);
+            } catch (Exception e) {
+                log.warn("Failed to acknowledge completion of session {}: {}", sessionId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Re-queue sessions that are still running, in case Redis lost them.
+     * Uses ZADD NX so entries already queued or claimed by another node are left untouched.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void recoverPendingSessions() {
+        List<PomodoroSession> pending = sessionRepository.findPendingWithUser();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (PomodoroSession session : pending) {
+                    Instant endTime = session.getStartTime().plusSeconds(session.getDurationMinutes() * 60L);
+                    redis.zAdd(QUEUE_KEY, endTime.toEpochMilli(),
+                            toMember(session.getId(), session.getUser().getDiscordId()),
+                            ZAddArgs.ifNotExists());
+                }
+                return null;
+            });
+            log.info("Re-queued {} pending session completions", pending.size());
+
+        } catch (Exception e) {
+            log.error("Failed to recover pending session completions", e);
+        }
+    }
+
+    private String toMember(Long sessionId, String discordId) {
+        return sessionId + ":" + discordId;
+    }
+}
@@ -0,0 +1,185 @@
+package com.tomabot.service;
+
+import com.tomabot.model.event.SessionsCompletedEvent;
+import com.tomabot.model.event.SessionsCompletedEvent.CompletedSession;
+import com.tomabot.model.event.TaskCompletedEvent;
+import com.tomabot.repository.RewardJdbcRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Grants rewards for completed sessions and tasks, once the completion has committed.
+ * Each stage (rewards, leaderboards, notifications) runs on its own bounded executor;
+ * a full stage queue pushes the work back onto the submitting thread.
+ * <p>
+ * The completion transaction records each reward as pending, and the grant deletes that
+ * record. Rewards still pending after {@code redelivery.after-seconds} (lost to a crash or
+ * a redeploy, or whose grant failed) are redelivered on startup and then every minute.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RewardPipeline {
+
+    private static final String REDELIVERY_JOB = "reward-redelivery";
+
+    private final RewardService rewardService;
+    private final LeaderboardService leaderboardService;
+    private final NotificationService notificationService;
+    private final RewardJdbcRepository rewardJdbcRepository;
+    private final ScheduledJobLock jobLock;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${tomabot.rewards.grant.threads:2}")
+    private int grantThreads;
+
+    @Value("${tomabot.rewards.grant.queue-capacity:1000}")
+    private int grantQueueCapacity;
+
+    @Value("${tomabot.rewards.leaderboard.threads:1}")
+    private int leaderboardThreads;
+
+    @Value("${tomabot.rewards.leaderboard.queue-capacity:1000}")
+    private int leaderboardQueueCapacity;
+
+    @Value("${tomabot.rewards.redelivery.after-seconds:60}")
+    private long redeliverAfterSeconds;
+
+    @Value("${tomabot.rewards.redelivery.batch-size:500}")
+    private int redeliveryBatchSize;
+
+    private ExecutorService grantStage;
+    private ExecutorService leaderboardStage;
+
+    @PostConstruct
+    public void start() {
+        grantStage = StageExecutors.bounded("grant", grantThreads, grantQueueCapacity, meterRegistry);
+        leaderboardStage = StageExecutors.bounded("leaderboard", leaderboardThreads,
+                leaderboardQueueCapacity, meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        StageExecutors.shutdown(grantStage);
+        StageExecutors.shutdown(leaderboardStage);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSessionsCompleted(SessionsCompletedEvent event) {
+        event.sessions().forEach(session -> notificationService.notifySessionCompleted(session.discordId()));
+        rewardSessions(event.sessions());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaskCompleted(TaskCompletedEvent event) {
+        rewardTask(event);
+    }
+
+    /**
+     * Grant the rewards still pending from before the redelivery delay, one batch per run
+     */
+    @Scheduled(initialDelay = 30_000, fixedDelay = 60_000)
+    public void redeliverPendingRewards() {
+        jobLock.runExclusively(REDELIVERY_JOB, () -> {
+            Instant createdBefore = Instant.now().minusSeconds(redeliverAfterSeconds);
+            List<CompletedSession> sessions =
+                    rewardJdbcRepository.findPendingSessionRewards(createdBefore, redeliveryBatchSize);
+            List<TaskCompletedEvent> tasks =
+                    rewardJdbcRepository.findPendingTaskRewards(createdBefore, redeliveryBatchSize);
+            if (sessions.isEmpty() && tasks.isEmpty()) {
+                return;
+            }
+
+            log.info("Redelivering pending rewards for {} sessions and {} tasks", sessions.size(), tasks.size());
+            meterRegistry.counter("tomabot.rewards.redelivered", "source", "session").increment(sessions.size());
+            meterRegistry.counter("tomabot.rewards.redelivered", "source", "task").increment(tasks.size());
+
+            // Wait for the grants, so the next run does not pick up rewards still in flight
+            List<CompletableFuture<Void>> redelivered = new ArrayList<>();
+            redelivered.add(rewardSessions(sessions));
+            tasks.forEach(task -> redelivered.add(rewardTask(task)));
+            CompletableFuture.allOf(redelivered.toArray(CompletableFuture[]::new)).join();
+        });
+    }
+
+    /**
+     * Grant the sessions' rewards, then update the leaderboards of the users rewarded here.
+     * Periodic boards are incremented only for the sessions whose reward this call granted,
+     * so a redelivered session is never counted twice.
+     */
+    private CompletableFuture<Void> rewardSessions(List<CompletedSession> sessions) {
+        List<CompletableFuture<Boolean>> rewards = sessions.stream()
+                .map(session -> grant(() -> rewardService.grantSessionRewards(
+                        session.userId(), session.sessionId(), session.durationMinutes(), session.startTime())))
+                .toList();
+
+        CompletableFuture<List<CompletedSession>> granted =
+                CompletableFuture.allOf(rewards.toArray(CompletableFuture[]::new))
+                        .thenApply(done -> IntStream.range(0, sessions.size())
+                                .filter(i -> rewards.get(i).join())
+                                .mapToObj(sessions::get)
+                                .toList());
+
+        CompletableFuture<Void> periodic = granted
+                .thenAcceptAsync(leaderboardService::recordCompletedSessions, leaderboardStage)
+                .exceptionally(failure("leaderboard"));
+
+        // One leaderboard pipeline for the whole batch, once every user's XP has landed
+        CompletableFuture<Void> global = granted
+                .thenAcceptAsync(rewarded -> leaderboardService.updateLeaderboardsForUsers(
+                        rewarded.stream().map(CompletedSession::userId).distinct().toList()), leaderboardStage)
+                .exceptionally(failure("leaderboard"));
+
+        return CompletableFuture.allOf(periodic, global);
+    }
+
+    private CompletableFuture<Void> rewardTask(TaskCompletedEvent task) {
+        return grant(() -> rewardService.grantTaskRewards(task.userId(), task.taskId()))
+                .thenAcceptAsync(rewarded -> {
+                    if (rewarded) {
+                        leaderboardService.updateLeaderboardsForUsers(List.of(task.userId()));
+                    }
+                }, leaderboardStage)
+                .exceptionally(failure("leaderboard"));
+    }
+
+    /**
+     * XP, level-ups and achievements for one user, in one transaction.
+     * Completes normally even when it fails, so one user never holds back a batch;
+     * the reward then stays pending until it is redelivered.
+     *
+     * @return whether the reward was granted by this call
+     */
+    private CompletableFuture<Boolean> grant(Supplier<Boolean> rewards) {
+        return CompletableFuture.supplyAsync(rewards, grantStage)
+                .exceptionally(e -> {
+                    failure("grant").apply(e);
+                    return false;
+                });
+    }
+
+    private Function<Throwable, Void> failure(String stage) {
+        return e -> {
+            meterRegistry.counter("tomabot.rewards.failures", "stage", stage).increment();
+            log.error("Reward stage {} failed", stage, e);
+            return null;
+        };
+    }
+}
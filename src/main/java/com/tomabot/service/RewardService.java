@@ -0,0 +1,254 @@
+package com.tomabot.service;
+
+import com.tomabot.model.entity.Achievement;
+import com.tomabot.model.entity.User;
+import com.tomabot.model.entity.UserStats;
+import com.tomabot.model.entity.XPTransaction;
+import com.tomabot.model.enums.AchievementType;
+import com.tomabot.model.enums.XPSource;
+import com.tomabot.repository.RewardJdbcRepository;
+import com.tomabot.repository.UserStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes every reward of a completion from one locked UserStats snapshot:
+ * XP grants, level-ups, achievement unlocks and the XP those unlocks grant in turn.
+ * The result is written as a single UPDATE of user_stats plus one batched insert
+ * each for xp_transactions and user_achievements. Unlocked achievements are read from
+ * {@link UnlockedAchievementCache}, which also claims each new unlock.
+ * <p>
+ * Each grant first claims the completion's pending_rewards row, in its own transaction:
+ * grants run after the completion has committed (possibly on the committing thread, whose
+ * transaction must not be joined), and a reward redelivered after a crash is granted once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RewardService {
+
+    private final UserStatsRepository userStatsRepository;
+    private final AchievementRuleIndex achievementRuleIndex;
+    private final UnlockedAchievementCache unlockedAchievementCache;
+    private final RewardJdbcRepository rewardJdbcRepository;
+    private final ExperienceService experienceService;
+    private final AchievementService achievementService;
+    private final NotificationService notificationService;
+    private final StatsCache statsCache;
+
+    /**
+     * Grant session XP, the first-session-of-the-day bonus and any achievements they unlock
+     *
+     * @return false if the session's reward was already granted
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean grantSessionRewards(Long userId, Long sessionId, int durationMinutes, Instant startTime) {
+        if (!claim(XPSource.SESSION_COMPLETED, sessionId)) {
+            return false;
+        }
+        RewardLedger ledger = openLedger(userId);
+        if (ledger == null) {
+            return true;
+        }
+
+        // Check the bonus before this session's XP counts as today's first gain
+        boolean firstSessionBonus = experienceService.shouldGrantFirstSessionBonus(ledger.user);
+
+        // Base XP = duration in minutes (25 min = 25 XP)
+        ledger.grantXP(XPSource.SESSION_COMPLETED, durationMinutes, sessionId);
+
+        if (firstSessionBonus) {
+            ledger.grantXP(XPSource.FIRST_SESSION_OF_DAY, XPSource.FIRST_SESSION_OF_DAY.getDefaultAmount(), sessionId);
+        }
+
+        unlockAchievements(ledger, sessionTouchedTypes(startTime.atZone(ledger.user.getZoneId()).getHour()));
+        flush(ledger);
+        return true;
+    }
+
+    /**
+     * Grant task XP and any achievements it unlocks
+     *
+     * @return false if the task's reward was already granted
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean grantTaskRewards(Long userId, Long taskId) {
+        if (!claim(XPSource.TASK_COMPLETED, taskId)) {
+            return false;
+        }
+        RewardLedger ledger = openLedger(userId);
+        if (ledger == null) {
+            return true;
+        }
+
+        ledger.grantXP(XPSource.TASK_COMPLETED, XPSource.TASK_COMPLETED.getDefaultAmount(), taskId);
+
+        unlockAchievements(ledger, EnumSet.of(AchievementType.TASKS_COMPLETED, AchievementType.SPECIAL_DATE));
+        flush(ledger);
+        return true;
+    }
+
+    private boolean claim(XPSource source, Long referenceId) {
+        if (rewardJdbcRepository.claimPendingReward(source, referenceId)) {
+            return true;
+        }
+        log.debug("Reward for {} {} already granted, skipping", source, referenceId);
+        return false;
+    }
+
+    private RewardLedger openLedger(Long userId) {
+        // Row lock: a task and a session can be rewarded concurrently for the same user
+        UserStats stats = userStatsRepository.findByUserIdForUpdate(userId).orElse(null);
+        if (stats == null) {
+            log.warn("No stats found for user {}, skipping rewards", userId);
+            return null;
+        }
+        return new RewardLedger(stats);
+    }
+
+    /**
+     * Requirement types whose counters a completed session can move.
+     * Morning/evening use the hour in the user's timezone, like the hour histogram.
+     */
+    private Set<AchievementType> sessionTouchedTypes(int hour) {
+        Set<AchievementType> touched = EnumSet.of(AchievementType.SESSIONS_COMPLETED,
+                AchievementType.TOTAL_FOCUS_MINUTES, AchievementType.STREAK_DAYS, AchievementType.SPECIAL_DATE);
+
+        if (hour < 12) {
+            touched.add(AchievementType.MORNING_SESSIONS);
+        } else if (hour >= 18) {
+            touched.add(AchievementType.EVENING_SESSIONS);
+        }
+        return touched;
+    }
+
+    /**
+     * Unlock the achievements of the touched requirement types that the snapshot now meets.
+     * Achievement XP can level the user up, so level achievements are re-checked until
+     * the level stops changing.
+     */
+    private void unlockAchievements(RewardLedger ledger, Set<AchievementType> touched) {
+        BitSet unlockedIds = (BitSet) unlockedAchievementCache.get(ledger.user.getId()).clone();
+
+        for (AchievementType type : touched) {
+            unlockRules(ledger, type, unlockedIds);
+        }
+
+        int levelChecked = ledger.levelBefore;
+        while (ledger.stats.getLevel() > levelChecked) {
+            levelChecked = ledger.stats.getLevel();
+            unlockRules(ledger, AchievementType.LEVEL_REACHED, unlockedIds);
+        }
+    }
+
+    /**
+     * Walk a type's rules from the lowest locked threshold and stop at the first unmet one,
+     * so a check usually costs a single evaluation per type
+     */
+    private void unlockRules(RewardLedger ledger, AchievementType type, BitSet unlockedIds) {
+        boolean threshold = achievementRuleIndex.isThresholdType(type);
+
+        for (Achievement achievement : achievementRuleIndex.getRules(type)) {
+            int id = Math.toIntExact(achievement.getId());
+            if (unlockedIds.get(id)) {
+                continue;
+            }
+            if (achievementService.isRequirementMet(ledger.user, ledger.stats, achievement)) {
+                unlockedIds.set(id);
+                // Losing the claim means the cached set was stale and the unlock already happened
+                if (unlockedAchievementCache.claim(ledger.user.getId(), achievement.getId())) {
+                    ledger.unlock(achievement);
+                }
+            } else if (threshold) {
+                break;
+            }
+        }
+    }
+
+    private void flush(RewardLedger ledger) {
+        User user = ledger.user;
+        UserStats stats = ledger.stats;
+
+        // The stats row is managed: its changes go out as one UPDATE at commit
+        rewardJdbcRepository.insertXpTransactions(user.getId(), ledger.transactions);
+        rewardJdbcRepository.insertUserAchievements(user.getId(),
+                ledger.unlocked.stream().map(Achievement::getId).toList());
+
+        // Cached /stats results show level, XP and achievements too: refresh them at commit
+        int level = stats.getLevel();
+        int currentXp = stats.getCurrentXp();
+        int xpToNextLevel = experienceService.calculateXPForLevel(level + 1);
+        int achievementsUnlocked = stats.getAchievementsCount();
+        statsCache.update(Map.of(user.getDiscordId(), (period, cached) -> cached.toBuilder()
+                .level(level)
+                .currentXP(currentXp)
+                .xpToNextLevel(xpToNextLevel)
+                .achievementsUnlocked(achievementsUnlocked)
+                .build()));
+
+        if (stats.getLevel() > ledger.levelBefore) {
+            notificationService.notifyLevelUp(user.getDiscordId(), user.getUsername(),
+                    experienceService.buildLevelUp(user, stats, ledger.levelBefore, ledger.xpGained));
+        }
+        ledger.unlocked.forEach(achievement ->
+                notificationService.notifyAchievementUnlocked(user.getDiscordId(), achievement));
+
+        log.info("Granted {} XP and {} achievements to user {} (Level {} -> {})",
+                ledger.xpGained, ledger.unlocked.size(), user.getDiscordId(),
+                ledger.levelBefore, stats.getLevel());
+    }
+
+    /**
+     * Mutations applied to one stats snapshot, waiting to be written
+     */
+    private final class RewardLedger {
+
+        private final UserStats stats;
+        private final User user;
+        private final int levelBefore;
+        private final List<XPTransaction> transactions = new ArrayList<>();
+        private final List<Achievement> unlocked = new ArrayList<>();
+        private int xpGained;
+
+        private RewardLedger(UserStats stats) {
+            this.stats = stats;
+            this.user = stats.getUser();
+            this.levelBefore = stats.getLevel();
+        }
+
+        private void grantXP(XPSource source, int amount, Long referenceId) {
+            int level = stats.getLevel();
+            experienceService.applyXP(stats, amount);
+            xpGained += amount;
+
+            transactions.add(XPTransaction.builder()
+                    .source(source)
+                    .amount(amount)
+                    .levelBefore(level)
+                    .levelAfter(stats.getLevel())
+                    .referenceId(referenceId)
+                    .description(source.getFormattedDescription(amount))
+                    .build());
+        }
+
+        private void unlock(Achievement achievement) {
+            unlocked.add(achievement);
+            stats.setAchievementsCount(stats.getAchievementsCount() + 1);
+            grantXP(XPSource.ACHIEVEMENT_UNLOCKED, achievement.getTotalXPReward(), achievement.getId());
+
+            log.info("User {} unlocked achievement: {} (+{} XP)",
+                    user.getDiscordId(), achievement.getName(), achievement.getTotalXPReward());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.tomabot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-wide guard for jobs that must run on one replica at a time, such as @Scheduled jobs,
+ * which fire on every replica at the same instant.
+ * A job runs only on the replica holding its Redis lease ({@code lock:job:{name}}).
+ * <p>
+ * Each acquisition gets a unique token from {@code lock:token:{name}}. The lease stores the
+ * token, and only its holder can renew or release it, so a replica that stalled past its lease
+ * cannot release the lease of the replica that took over. Leases are renewed while the job runs.
+ * The token is not checked by the job's own writes: a replica stalled past its lease may still
+ * finish its run, so every job guarded here must be safe to run twice.
+ * They are held for at least min-hold-seconds, so a replica whose clock lags cannot run the
+ * same tick again after a short job finished.
+ * <p>
+ * If Redis is unavailable the job is skipped: every job guarded here catches up on its next run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledJobLock {
+
+    private static final String LOCK_KEY = "lock:job:";
+    private static final String TOKEN_KEY = "lock:token:";
+
+    // KEYS[1] = lock, KEYS[2] = token counter, ARGV[1] = lease (ms); returns the token, or 0 if held
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return 0
+            end
+            local token = redis.call('INCR', KEYS[2])
+            redis.call('SET', KEYS[1], token, 'PX', ARGV[1])
+            return token
+            """, Long.class);
+
+    // KEYS[1] = lock, ARGV[1] = token, ARGV[2] = lease (ms), 0 to delete
+    private static final RedisScript<Long> EXTEND_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            if tonumber(ARGV[2]) > 0 then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return redis.call('DEL', KEYS[1])
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${tomabot.jobs.lock.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${tomabot.jobs.lock.min-hold-seconds:30}")
+    private long minHoldSeconds;
+
+    private final Map<String, Long> held = new ConcurrentHashMap<>();
+    private ScheduledExecutorService renewer;
+
+    @PostConstruct
+    public void start() {
+        renewer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("tomabot-job-lock-"));
+        long renewEveryMs = TimeUnit.SECONDS.toMillis(leaseSeconds) / 3;
+        renewer.scheduleWithFixedDelay(this::renewHeld, renewEveryMs, renewEveryMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        renewer.shutdownNow();
+    }
+
+    /**
+     * Run the job if no other replica is running it or ran it within the minimum hold time
+     *
+     * @return whether the job ran here
+     */
+    public boolean runExclusively(String job, Runnable task) {
+        Long token = acquire(job);
+        if (token == null) {
+            return false;
+        }
+
+        Timer.Sample holding = Timer.start(meterRegistry);
+        long acquiredAt = System.currentTimeMillis();
+        held.put(job, token);
+        try {
+            task.run();
+            return true;
+        } finally {
+            held.remove(job);
+            release(job, token, acquiredAt);
+            holding.stop(meterRegistry.timer("tomabot.jobs.lock.held", "job", job));
+        }
+    }
+
+    private Long acquire(String job) {
+        Timer.Sample acquiring = Timer.start(meterRegistry);
+        String result;
+        Long token = null;
+        try {
+            Long acquired = stringRedisTemplate.execute(ACQUIRE_SCRIPT, List.of(LOCK_KEY + job, TOKEN_KEY + job),
+                    String.valueOf(TimeUnit.SECONDS.toMillis(leaseSeconds)));
+            if (acquired != null && acquired > 0) {
+                token = acquired;
+                result = "acquired";
+                log.debug("Acquired lock for job {} (token {})", job, token);
+            } else {
+                result = "busy";
+                log.debug("Job {} is running or ran on another instance, skipping", job);
+            }
+        } catch (Exception e) {
+            result = "error";
+            log.warn("Could not acquire lock for job {}, skipping this run: {}", job, e.getMessage());
+        }
+        acquiring.stop(meterRegistry.timer("tomabot.jobs.lock.acquire", "job", job, "result", result));
+        return token;
+    }
+
+    /**
+     * Keep the lease until the minimum hold time has passed, then let it expire
+     */
+    private void release(String job, long token, long acquiredAt) {
+        long remainingMs = TimeUnit.SECONDS.toMillis(minHoldSeconds) - (System.currentTimeMillis() - acquiredAt);
+        try {
+            Long released = stringRedisTemplate.execute(EXTEND_SCRIPT, List.of(LOCK_KEY + job),
+                    String.valueOf(token), String.valueOf(Math.max(remainingMs, 0)));
+            if (released == null || released == 0) {
+                log.warn("Lock for job {} (token {}) was no longer held when the job finished", job, token);
+            }
+        } catch (Exception e) {
+            log.warn("Could not release lock for job {}, it expires on its own: {}", job, e.getMessage());
+        }
+    }
+
+    private void renewHeld() {
+        String lease = String.valueOf(TimeUnit.SECONDS.toMillis(leaseSeconds));
+        held.forEach((job, token) -> {
+            try {
+                Long renewed = stringRedisTemplate.execute(EXTEND_SCRIPT, List.of(LOCK_KEY + job),
+                        String.valueOf(token), lease);
+                if (renewed == null || renewed == 0) {
+                    meterRegistry.counter("tomabot.jobs.lock.lost", "job", job).increment();
+                    log.warn("Lost lock for running job {} (token {})", job, token);
+                    held.remove(job, token);
+                }
+            } catch (Exception e) {
+                log.warn("Could not renew lock for job {}: {}", job, e.getMessage());
+            }
+        });
+    }
+}
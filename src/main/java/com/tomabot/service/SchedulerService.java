@@ -1,48 +1,20 @@
-
 package com.tomabot.service;
 
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.quartz.*;
-import org.springframework.stereotype.Service;
 import java.time.Instant;
-import java.util.Date;
-
-@Service
-@RequiredArgsConstructor
-@Slf4j
-public class SchedulerService {
-
-    private final Scheduler scheduler;
-
-    public void scheduleSessionCompletion(Long sessionId, String discordId, Instant endTime) {
-        try {
-            JobDetail job = JobBuilder.newJob(SessionCompletionJob.class)
-                    .withIdentity("session-" + sessionId, "pomodoro")
-                    .usingJobData("sessionId", sessionId)
-                    .usingJobData("discordId", discordId)
-                    .build();
-
-            Trigger trigger = TriggerBuilder.newTrigger()
-                    .withIdentity("trigger-session-" + sessionId, "pomodoro")
-                    .startAt(Date.from(endTime))
-                    .build();
-
-            scheduler.scheduleJob(job, trigger);
-            log.debug("Scheduled completion job for session {}", sessionId);
-
-        } catch (SchedulerException e) {
-            log.error("Failed to schedule session completion", e);
-        }
-    }
 
-    public void cancelSessionJob(Long sessionId) {
-        try {
-            JobKey jobKey = JobKey.jobKey("session-" + sessionId, "pomodoro");
-            scheduler.deleteJob(jobKey);
-            log.debug("Cancelled job for session {}", sessionId);
-        } catch (SchedulerException e) {
-            log.error("Failed to cancel session job", e);
-        }
-    }
-}
\ No newline at end of file
+/**
+ * Schedules the automatic completion of Pomodoro sessions.
+ * The active backend is selected with {@code tomabot.scheduler.backend}.
+ */
+public interface SchedulerService {
+
+    /**
+     * Schedule the completion of a session at its end time
+     */
+    void scheduleSessionCompletion(Long sessionId, String discordId, Instant endTime);
+
+    /**
+     * Cancel the pending completion of a session
+     */
+    void cancelSessionJob(Long sessionId, String discordId);
+}
@@ -0,0 +1,150 @@
+package com.tomabot.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completes sessions once their timer fires, whatever scheduler backend fired it.
+ * Completions are coalesced over a short window so that sessions ending together
+ * (everyone who started at the top of the hour) are completed in one transaction.
+ * If a batch fails, its sessions are retried one per transaction, so only the
+ * session at fault stays incomplete.
+ * <p>
+ * On shutdown the last batch is completed while the beans it needs are still up
+ * (lifecycle beans stop before any bean is destroyed); sessions submitted after that
+ * are refused and left to the scheduler backends' startup recovery.
+ */
+@Component
+@Slf4j
+public class SessionCompletionHandler implements SmartLifecycle {
+
+    private PomodoroService pomodoroService;
+
+    @Value("${tomabot.scheduler.completion.window-ms:200}")
+    private long windowMs;
+
+    @Value("${tomabot.scheduler.completion.max-batch-size:100}")
+    private int maxBatchSize;
+
+    private final ConcurrentLinkedQueue<PendingCompletion> queue = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+    private volatile boolean stopped;
+
+    @Autowired
+    public void setPomodoroService(@Lazy PomodoroService pomodoroService) {
+        this.pomodoroService = pomodoroService;
+    }
+
+    @Override
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("tomabot-completion-"));
+        flusher.scheduleWithFixedDelay(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        running = false;
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+
+        // Submitted while the last batch was being completed
+        PendingCompletion late;
+        while ((late = queue.poll()) != null) {
+            late.future().completeExceptionally(new IllegalStateException("Completion handler stopped"));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after Quartz (which stops at the default phase and waits for its running jobs)
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1;
+    }
+
+    /**
+     * Queue a session for completion in the next batch.
+     * The returned future completes once the batch has been committed, or fails
+     * right away once the handler has stopped. Sessions submitted before the handler
+     * starts wait for its first flush.
+     */
+    public CompletableFuture<Void> submit(Long sessionId, String discordId) {
+        if (stopped) {
+            log.info("Shutting down, leaving session {} to startup recovery", sessionId);
+            return CompletableFuture.failedFuture(new IllegalStateException("Completion handler stopped"));
+        }
+        PendingCompletion completion = new PendingCompletion(sessionId, discordId, new CompletableFuture<>());
+        queue.add(completion);
+        return completion.future();
+    }
+
+    /**
+     * Complete everything queued so far, in batches of at most maxBatchSize
+     */
+    void flush() {
+        while (!queue.isEmpty()) {
+            List<PendingCompletion> batch = new ArrayList<>();
+            PendingCompletion next;
+            while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+                batch.add(next);
+            }
+            completeBatch(batch);
+        }
+    }
+
+    private void completeBatch(List<PendingCompletion> batch) {
+        Map<Long, String> sessions = new LinkedHashMap<>();
+        batch.forEach(completion -> sessions.put(completion.sessionId(), completion.discordId()));
+
+        log.info("Completing batch of {} sessions", sessions.size());
+
+        try {
+            pomodoroService.completeSessions(sessions);
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                log.error("Error completing session {}", batch.get(0).sessionId(), e);
+                batch.get(0).future().completeExceptionally(e);
+                return;
+            }
+            // The backends do not retry, so one bad session must not hold back the rest
+            log.warn("Batch of {} sessions failed, completing them one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(completion -> completeBatch(List.of(completion)));
+            return;
+        }
+
+        batch.forEach(completion -> completion.future().complete(null));
+    }
+
+    private record PendingCompletion(Long sessionId, String discordId, CompletableFuture<Void> future) {}
+}
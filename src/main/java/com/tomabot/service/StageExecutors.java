@@ -0,0 +1,52 @@
+package com.tomabot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded executors for background stages (reward pipeline, stats refresh)
+ */
+final class StageExecutors {
+
+    private StageExecutors() {
+    }
+
+    /**
+     * Fixed-size pool with a bounded queue. When the queue is full the submitting thread
+     * runs the task itself, which slows down the upstream stage instead of dropping work.
+     * Exposed as executor.* metrics tagged name=tomabot.rewards.{stage}.
+     */
+    static ExecutorService bounded(String stage, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        return bounded("tomabot.rewards", stage, threads, queueCapacity, meterRegistry);
+    }
+
+    /**
+     * Same, with metrics tagged name={metricPrefix}.{stage}
+     */
+    static ExecutorService bounded(String metricPrefix, String stage, int threads, int queueCapacity,
+                                   MeterRegistry meterRegistry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("tomabot-" + stage + "-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, metricPrefix + "." + stage);
+    }
+
+    static void shutdown(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,19 +1,24 @@
 package com.tomabot.service;
 
 import com.tomabot.model.entity.User;
-import com.tomabot.model.entity.UserStats;
-import com.tomabot.repository.PomodoroSessionRepository;
-import com.tomabot.repository.TaskRepository;
-import com.tomabot.repository.UserRepository;
+import com.tomabot.repository.StatsReconciliationRepository;
+import com.tomabot.repository.StreakRepository;
+import com.tomabot.repository.StreakRepository.ExpiredStreak;
 import com.tomabot.repository.UserStatsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Service for aggregating statistics periodically
@@ -24,85 +29,98 @@ import java.util.List;
 @Slf4j
 public class StatsAggregationService {
 
-    private final UserRepository userRepository;
+    private static final String RECONCILE_JOB = "stats-reconcile";
+
     private final UserStatsRepository userStatsRepository;
-    private final PomodoroSessionRepository sessionRepository;
-    private final TaskRepository taskRepository;
-    private final StatsService statsService;
+    private final StatsReconciliationRepository reconciliationRepository;
+    private final StreakRepository streakRepository;
+    private final LeaderboardService leaderboardService;
+    private final StatsCache statsCache;
+    private final BatchJobRunner batchJobRunner;
+    private final ScheduledJobLock jobLock;
+    private final TaskScheduler taskScheduler;
 
     /**
      * Daily stats aggregation job
      * Runs every day at 00:05 AM
      */
     @Scheduled(cron = "0 5 0 * * *")
-    @Transactional
     public void aggregateDailyStats() {
-        log.info("Starting daily stats aggregation...");
+        jobLock.runExclusively(RECONCILE_JOB, () -> {
+            log.info("Starting daily stats aggregation...");
 
-        try {
-            List<User> allUsers = userRepository.findAll();
-            int updated = 0;
+            try {
+                int updated = reconcileAllStats();
+                log.info("Daily stats aggregation completed. Updated {} users", updated);
 
-            for (User user : allUsers) {
-                if (aggregateUserSafely(user)) {
-                    updated++;
-                }
+            } catch (Exception e) {
+                log.error("Error during daily stats aggregation", e);
             }
+        });
+    }
 
-            log.info("Daily stats aggregation completed. Updated {} users", updated);
-
-        } catch (Exception e) {
-            log.error("Error during daily stats aggregation", e);
-        }
+    /**
+     * Recompute every user's lifetime totals from sessions and tasks, one chunk of user ids
+     * per statement and transaction. An interrupted run resumes where it stopped.
+     *
+     * @return number of users whose totals were created or changed
+     */
+    private int reconcileAllStats() {
+        BatchJobRunner.Result result = batchJobRunner.run(RECONCILE_JOB, "users", true, ids -> {
+            List<String> changed = reconciliationRepository.reconcile(ids.get(0), ids.get(ids.size() - 1));
+            statsCache.invalidate(changed);
+            return changed.size();
+        });
+        return (int) result.affected();
     }
 
-    private boolean aggregateUserSafely(User user) {
-        try {
-            aggregateUserStats(user); //NOSONAR
-            return true;
-        } catch (Exception e) {
-            log.error("Failed to aggregate stats for user {}", user.getDiscordId(), e);
-            return false;
+    /**
+     * Finish a reconciliation the previous instance was stopped in the middle of.
+     * It runs on the scheduler, under the job's lock, so startup is not held up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedReconciliation() {
+        if (batchJobRunner.hasCheckpoint(RECONCILE_JOB)) {
+            taskScheduler.schedule(this::recalculateAllStats, Instant.now());
         }
     }
 
     /**
      * Hourly streak check
-     * Runs every hour to update streaks
+     * Runs every hour and resets the streak of users whose local day ended
+     * without a session since the day before
      */
     @Scheduled(cron = "0 0 * * * *")
-    @Transactional
     public void checkStreaks() {
-        log.debug("Checking user streaks...");
-
-        try {
-            List<UserStats> allStats = userStatsRepository.findAll();
-            int updated = 0;
-
-            LocalDate yesterday = LocalDate.now().minusDays(1);
-
-            for (UserStats stats : allStats) {
-                if (stats.getCurrentStreak() > 0 && stats.getLastSessionDate() != null) {
-                    LocalDate lastDate = stats.getLastSessionDate()
-                            .atZone(ZoneId.systemDefault()).toLocalDate();
-
-                    // If last session was not yesterday or today, break streak
-                    if (lastDate.isBefore(yesterday)) {
-                        stats.updateStreak(0);
-                        userStatsRepository.save(stats);
-                        updated++;
-                        log.debug("Broke streak for user {}", stats.getUser().getDiscordId());
-                    }
+        jobLock.runExclusively("streak-check", () -> {
+            log.debug("Checking user streaks...");
+
+            try {
+                Instant now = Instant.now();
+                // No timezone's yesterday began less than 23 hours ago, so this bounds every cutoff
+                Instant before = now.minus(Duration.ofHours(23));
+
+                Map<String, Instant> cutoffs = new HashMap<>();
+                for (String timezone : streakRepository.findActiveStreakTimezones(before)) {
+                    ZoneId zone = User.zoneOf(timezone);
+                    cutoffs.put(timezone, LocalDate.now(zone).minusDays(1).atStartOfDay(zone).toInstant());
                 }
-            }
 
-            if (updated > 0) {
-                log.info("Updated {} user streaks", updated);
-            }
+                List<ExpiredStreak> expired = streakRepository.expireStreaks(cutoffs, before);
+                if (expired.isEmpty()) {
+                    return;
+                }
 
-        } catch (Exception e) {
-            log.error("Error during streak check", e);
-        }
+                leaderboardService.updateLeaderboardsForUsers(expired.stream().map(ExpiredStreak::userId).toList());
+                statsCache.update(expired.stream().collect(Collectors.toMap(ExpiredStreak::discordId,
+                        streak -> (period, cached) -> cached.toBuilder().currentStreak(0).build())));
+
+                log.info("Updated {} user streaks", expired.size());
+
+            } catch (Exception e) {
+                log.error("Error during streak check", e);
+            }
+        });
     }
 
     /**
@@ -110,73 +128,39 @@ public class StatsAggregationService {
      * Runs every Sunday at 01:00 AM
      */
     @Scheduled(cron = "0 0 1 * * SUN")
-    @Transactional
     public void weeklyCleanup() {
-        log.info("Starting weekly cleanup...");
+        jobLock.runExclusively("weekly-cleanup", () -> {
+            log.info("Starting weekly cleanup...");
 
-        try {
-            // Clear old Redis cache
-            statsService.invalidateStatsCache("*");
-
-            // Additional cleanup tasks can be added here
+            try {
+                // Entries expire on their own; this sweeps any left behind, without blocking Redis
+                int removed = statsCache.sweep();
+                log.debug("Swept {} cached stats entries", removed);
 
-            log.info("Weekly cleanup completed");
+                // Additional cleanup tasks can be added here
 
-        } catch (Exception e) {
-            log.error("Error during weekly cleanup", e);
-        }
-    }
+                log.info("Weekly cleanup completed");
 
-    /**
-     * Aggregate all stats for a specific user
-     */
-    @Transactional
-    public void aggregateUserStats(User user) {
-        UserStats stats = userStatsRepository.findByUser(user)
-                .orElseGet(() -> statsService.getOrCreateUserStats(user));
-
-        // Calculate all-time totals
-        Instant allTimeStart = Instant.ofEpochMilli(0);
-        Instant now = Instant.now();
-
-        Long completed = sessionRepository.countCompletedByUserAndDateRange(user, allTimeStart, now);
-        Long interrupted = sessionRepository.countInterruptedByUserAndDateRange(user, allTimeStart, now);
-        Integer focusMinutes = sessionRepository.sumFocusMinutesByUserAndDateRange(user, allTimeStart, now);
-        Long tasksCompleted = taskRepository.countCompletedByUserAndDateRange(user, allTimeStart, now);
-
-        // Update stats
-        stats.setTotalSessionsCompleted(completed.intValue());
-        stats.setTotalSessionsInterrupted(interrupted.intValue());
-        stats.setTotalFocusMinutes(focusMinutes);
-        stats.setTotalTasksCompleted(tasksCompleted.intValue());
-
-        userStatsRepository.save(stats);
-
-        log.debug("Aggregated stats for user {}: {} sessions, {} minutes",
-                user.getDiscordId(), completed, focusMinutes);
+            } catch (Exception e) {
+                log.error("Error during weekly cleanup", e);
+            }
+        });
     }
 
     /**
      * Recalculate all user stats (manual trigger)
      */
-    @Transactional
     public void recalculateAllStats() {
-        log.info("Recalculating all user stats...");
+        boolean ran = jobLock.runExclusively(RECONCILE_JOB, () -> {
+            log.info("Recalculating all user stats...");
 
-        List<User> allUsers = userRepository.findAll();
-        int updated = 0;
+            int updated = reconcileAllStats();
 
-        for (User user : allUsers) {
-            try {
-                aggregateUserStats(user); //NOSONAR
-                statsService.invalidateStatsCache(user.getDiscordId());
-                updated++;
-            } catch (Exception e) {
-                log.error("Failed to recalculate stats for user {}", user.getDiscordId(), e);
-            }
+            log.info("Recalculated stats for {} users", updated);
+        });
+        if (!ran) {
+            log.info("Skipped stats recalculation: another instance holds its lock");
         }
-
-        log.info("Recalculated stats for {} users", updated);
     }
 
     /**
@@ -0,0 +1,412 @@
+package com.tomabot.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tomabot.model.dto.UserStatsDTO;
+import com.tomabot.model.enums.StatsPeriod;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Two-level cache of computed /stats results: a bounded in-process near-cache
+ * in front of Redis.
+ * Redis entries are keyed by a per-user generation ({@code stats:ver:{discordId}}):
+ * invalidating a user is a single INCR, and entries of older generations are
+ * never read again and simply expire. Invalidations are also published on
+ * {@value #INVALIDATION_CHANNEL} so every node drops its local copies. A result is
+ * only near-cached while its generation is current, so a slow calculation that finishes
+ * after an invalidation cannot put superseded stats back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatsCache implements MessageListener {
+
+    private static final String CACHE_KEY = "stats:cache:";
+    private static final String VERSION_KEY = "stats:ver:";
+    private static final String INVALIDATION_CHANNEL = "stats:invalidate";
+    private static final long CACHE_TTL_MINUTES = 5;
+    // Outlives every entry, so a version key never expires while an entry of its generation exists
+    private static final long VERSION_TTL_DAYS = 1;
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    // The shared RedisTemplate stores JSON without type hints, so values read back as maps
+    private static final ObjectMapper DTO_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${tomabot.stats.cache.local-max-size:10000}")
+    private long localMaxSize;
+
+    // Bounds how stale a node can be if it misses an invalidation message
+    @Value("${tomabot.stats.cache.local-ttl-seconds:30}")
+    private long localTtlSeconds;
+
+    // How long a superseded result may still be served while its replacement is computed
+    @Value("${tomabot.stats.cache.max-stale-seconds:300}")
+    private long maxStaleSeconds;
+
+    private Cache<String, Lookup> local;
+    private Cache<String, UserStatsDTO> lastKnown;
+
+    @PostConstruct
+    public void start() {
+        local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "stats.local");
+
+        // Invalidation leaves these in place: they are what stale-while-revalidate serves
+        lastKnown = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(maxStaleSeconds))
+                .build();
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * Cached stats of a user and period: from the near-cache, else from Redis.
+     * A miss still carries the generation to cache the computed result under;
+     * a null generation means Redis is unavailable and the result should not be cached.
+     */
+    public Lookup lookup(String discordId, StatsPeriod period) {
+        Lookup cached = local.getIfPresent(localKey(discordId, period));
+        if (cached != null) {
+            return cached;
+        }
+
+        Long version = version(discordId);
+        if (version == null) {
+            return new Lookup(null, null);
+        }
+
+        UserStatsDTO stats = get(discordId, period, version);
+        meterRegistry.counter("tomabot.stats.cache.redis", "result", stats != null ? "hit" : "miss").increment();
+        Lookup lookup = new Lookup(version, stats);
+        if (stats != null) {
+            putLocal(discordId, period, lookup);
+            lastKnown.put(localKey(discordId, period), stats);
+        }
+        return lookup;
+    }
+
+    /**
+     * Most recent result computed on this node, possibly of an older generation
+     */
+    public UserStatsDTO getStale(String discordId, StatsPeriod period) {
+        return lastKnown.getIfPresent(localKey(discordId, period));
+    }
+
+    /**
+     * Cache a computed result under the generation it was computed for.
+     * A result whose generation was superseded meanwhile is only kept as last known.
+     */
+    public void put(String discordId, StatsPeriod period, long version, UserStatsDTO stats) {
+        lastKnown.put(localKey(discordId, period), stats);
+
+        Long current = version(discordId);
+        if (current == null || version < current) {
+            meterRegistry.counter("tomabot.stats.cache.superseded").increment();
+            return;
+        }
+
+        try {
+            redisTemplate.opsForValue().set(key(discordId, period, version), stats,
+                    CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("Failed to cache stats: {}", e.getMessage());
+            return;
+        }
+        putLocal(discordId, period, new Lookup(version, stats));
+    }
+
+    /**
+     * Move users to a new generation, once the current transaction (if any) has committed,
+     * so a concurrent read cannot cache pre-commit stats under the new generation
+     */
+    public void invalidate(Collection<String> discordIds) {
+        if (discordIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpVersions(discordIds);
+                }
+            });
+        } else {
+            bumpVersions(discordIds);
+        }
+    }
+
+    /**
+     * Write-through of a change made by the current transaction. Before commit, each user's
+     * cached results are read and the user is moved to a new generation, so the results read
+     * can only predate the change. After commit, the user moves on once more, carrying those
+     * results with the change applied. Results computed in between, which may or may not
+     * include the change, are never served. If any other change moved the generation meanwhile,
+     * the results are dropped instead and recomputed on the next read.
+     * <p>
+     * Outside a transaction the change is already visible to readers, which may have cached it,
+     * so the users are only invalidated.
+     *
+     * @param changes per user, the change to apply to a cached result of a period
+     */
+    public void update(Map<String, BiFunction<StatsPeriod, UserStatsDTO, UserStatsDTO>> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpVersions(changes.keySet());
+            return;
+        }
+
+        Map<String, Snapshot> snapshots = new HashMap<>();
+        changes.keySet().forEach(discordId -> snapshots.put(discordId, snapshot(discordId)));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changes.forEach((discordId, change) -> writeThrough(discordId, snapshots.get(discordId), change));
+            }
+        });
+    }
+
+    /**
+     * Cached results of a user, read before the change commits, and the generation the
+     * user was moved to after reading them. Null when nothing can be carried over.
+     */
+    private Snapshot snapshot(String discordId) {
+        evictLocal(discordId);
+
+        Long version = version(discordId);
+        if (version == null) {
+            return null;
+        }
+
+        try {
+            List<Object> cached = redisTemplate.opsForValue().multiGet(Arrays.stream(StatsPeriod.values())
+                    .map(period -> key(discordId, period, version))
+                    .toList());
+
+            Long moved = stringRedisTemplate.opsForValue().increment(VERSION_KEY + discordId);
+            stringRedisTemplate.expire(VERSION_KEY + discordId, VERSION_TTL_DAYS, TimeUnit.DAYS);
+
+            // Another change moved the generation between the read and the INCR
+            if (moved == null || moved != version + 1 || cached == null) {
+                return null;
+            }
+            return new Snapshot(moved, cached);
+
+        } catch (Exception e) {
+            log.warn("Failed to read cached stats before update: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeThrough(String discordId, Snapshot snapshot,
+                              BiFunction<StatsPeriod, UserStatsDTO, UserStatsDTO> change) {
+        if (snapshot == null) {
+            meterRegistry.counter("tomabot.stats.cache.write-through", "result", "dropped").increment();
+            bumpVersions(List.of(discordId));
+            return;
+        }
+
+        evictLocal(discordId);
+        try {
+            Long next = stringRedisTemplate.opsForValue().increment(VERSION_KEY + discordId);
+            stringRedisTemplate.expire(VERSION_KEY + discordId, VERSION_TTL_DAYS, TimeUnit.DAYS);
+
+            int written = 0;
+            if (next != null && next == snapshot.version() + 1) {
+                StatsPeriod[] periods = StatsPeriod.values();
+                for (int i = 0; i < periods.length; i++) {
+                    UserStatsDTO stats = toStats(snapshot.cached().get(i));
+                    if (stats != null) {
+                        UserStatsDTO updated = change.apply(periods[i], stats);
+                        redisTemplate.opsForValue().set(key(discordId, periods[i], next), updated,
+                                CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+                        putLocal(discordId, periods[i], new Lookup(next, updated));
+                        lastKnown.put(localKey(discordId, periods[i]), updated);
+                        written++;
+                    }
+                }
+            }
+            meterRegistry.counter("tomabot.stats.cache.write-through",
+                    "result", written > 0 ? "updated" : "empty").increment();
+
+            // Every node drops its local copies and reads the new generation from Redis
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, discordId);
+
+        } catch (Exception e) {
+            log.warn("Failed to update cached stats, invalidating: {}", e.getMessage());
+            bumpVersions(List.of(discordId));
+        }
+    }
+
+    /**
+     * Invalidation published by any node, this one included
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        evictLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private Long version(String discordId) {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(VERSION_KEY + discordId);
+            return version != null ? Long.parseLong(version) : 0L;
+        } catch (Exception e) {
+            log.warn("Failed to read stats cache version: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private UserStatsDTO get(String discordId, StatsPeriod period, long version) {
+        try {
+            return toStats(redisTemplate.opsForValue().get(key(discordId, period, version)));
+        } catch (Exception e) {
+            log.warn("Failed to get cached stats: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private UserStatsDTO toStats(Object cached) {
+        if (cached == null || cached instanceof UserStatsDTO) {
+            return (UserStatsDTO) cached;
+        }
+        return DTO_MAPPER.convertValue(cached, UserStatsDTO.class);
+    }
+
+    private void bumpVersions(Collection<String> discordIds) {
+        // Local copies go first: this node must not serve them even if Redis is unreachable
+        discordIds.forEach(this::evictLocal);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (String discordId : discordIds) {
+                    redis.incr(VERSION_KEY + discordId);
+                    redis.expire(VERSION_KEY + discordId, TimeUnit.DAYS.toSeconds(VERSION_TTL_DAYS));
+                    redis.publish(INVALIDATION_CHANNEL, discordId);
+                }
+                return null;
+            });
+            log.debug("Invalidated cached stats for {} users", discordIds.size());
+        } catch (Exception e) {
+            log.warn("Failed to invalidate stats cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Near-cache a result, unless its generation is superseded. The version is read again
+     * after the put: an invalidation either shows up in that read, or its message
+     * arrives after the put and evicts it.
+     */
+    private void putLocal(String discordId, StatsPeriod period, Lookup lookup) {
+        String localKey = localKey(discordId, period);
+        local.put(localKey, lookup);
+        if (!lookup.version().equals(version(discordId))) {
+            local.invalidate(localKey);
+        }
+    }
+
+    private void evictLocal(String discordId) {
+        for (StatsPeriod period : StatsPeriod.values()) {
+            local.invalidate(localKey(discordId, period));
+        }
+    }
+
+    /**
+     * Remove every cached entry with an incremental SCAN and non-blocking UNLINKs,
+     * never blocking Redis the way KEYS does
+     *
+     * @return number of entries removed
+     */
+    public int sweep() {
+        ScanOptions options = ScanOptions.scanOptions().match(CACHE_KEY + "*").count(SWEEP_BATCH_SIZE).build();
+        int removed = 0;
+
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            List<String> batch = new ArrayList<>(SWEEP_BATCH_SIZE);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == SWEEP_BATCH_SIZE) {
+                    removed += unlink(batch);
+                }
+            }
+            removed += unlink(batch);
+        }
+
+        return removed;
+    }
+
+    private int unlink(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long unlinked = stringRedisTemplate.unlink(keys);
+        keys.clear();
+        return unlinked != null ? unlinked.intValue() : 0;
+    }
+
+    private String key(String discordId, StatsPeriod period, long version) {
+        return CACHE_KEY + discordId + ":" + period.name() + ":" + version;
+    }
+
+    private String localKey(String discordId, StatsPeriod period) {
+        return discordId + ":" + period.name();
+    }
+
+    /**
+     * Result of a cache read
+     *
+     * @param version generation the stats belong to, null when Redis is unavailable
+     * @param stats   cached stats, null on a miss
+     */
+    public record Lookup(Long version, UserStatsDTO stats) {}
+
+    /**
+     * @param version generation the user was moved to before the change committed
+     * @param cached  raw cached results of the previous generation, in {@link StatsPeriod} order
+     */
+    private record Snapshot(long version, List<Object> cached) {}
+}
@@ -5,19 +5,29 @@ import com.tomabot.model.entity.PomodoroSession;
 import com.tomabot.model.entity.User;
 import com.tomabot.model.entity.UserStats;
 import com.tomabot.model.enums.StatsPeriod;
-import com.tomabot.repository.PomodoroSessionRepository;
-import com.tomabot.repository.TaskRepository;
+import com.tomabot.repository.DailyStatsRepository;
+import com.tomabot.repository.PeriodStatsRepository;
+import com.tomabot.repository.PeriodStatsRepository.PeriodStats;
 import com.tomabot.repository.UserStatsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,43 +35,105 @@ import java.util.stream.Collectors;
 @Slf4j
 public class StatsService {
 
-    private final PomodoroSessionRepository sessionRepository;
-    private final TaskRepository taskRepository;
     private final UserStatsRepository userStatsRepository;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final DailyStatsRepository dailyStatsRepository;
+    private final PeriodStatsRepository periodStatsRepository;
+    private final StatsCache statsCache;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${tomabot.stats.refresh.threads:2}")
+    private int refreshThreads;
+
+    @Value("${tomabot.stats.refresh.queue-capacity:100}")
+    private int refreshQueueCapacity;
+
+    // One calculation per (user, period, generation), shared by every concurrent caller
+    private final Map<String, CompletableFuture<UserStatsDTO>> inFlight = new ConcurrentHashMap<>();
+
+    private ExecutorService refreshExecutor;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void start() {
+        refreshExecutor = StageExecutors.bounded("tomabot.stats", "refresh", refreshThreads,
+                refreshQueueCapacity, meterRegistry);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
 
-    private static final String STATS_CACHE_KEY = "stats:cache:";
-    private static final long CACHE_TTL_MINUTES = 5;
+    @PreDestroy
+    public void stop() {
+        StageExecutors.shutdown(refreshExecutor);
+    }
 
     /**
-     * Get user statistics for a specific period
+     * Get user statistics for a specific period.
+     * On a cache miss, concurrent callers share one calculation; if a previous result
+     * is still known it is returned right away while the calculation runs in the background.
      */
-    @Transactional(readOnly = true)
     public UserStatsDTO getUserStats(User user, String periodStr) {
+        StatsPeriod period = StatsPeriod.fromString(periodStr);
+
         // Try cache first
-        String cacheKey = STATS_CACHE_KEY + user.getDiscordId() + ":" + periodStr;
-        UserStatsDTO cached = getCachedStats(cacheKey);
-        if (cached != null) {
+        StatsCache.Lookup cached = statsCache.lookup(user.getDiscordId(), period);
+        if (cached.stats() != null) {
             log.debug("Returning cached stats for user {}", user.getDiscordId());
-            return cached;
+            return cached.stats();
         }
 
-        StatsPeriod period = StatsPeriod.fromString(periodStr);
-        UserStatsDTO stats = calculateStats(user, period);
+        CompletableFuture<UserStatsDTO> refresh = refresh(user, period, cached.version());
 
-        // Cache result
-        cacheStats(cacheKey, stats);
+        UserStatsDTO stale = statsCache.getStale(user.getDiscordId(), period);
+        if (stale != null) {
+            log.debug("Returning stale stats for user {} while refreshing", user.getDiscordId());
+            return stale;
+        }
 
-        return stats;
+        try {
+            return refresh.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Calculate and cache stats on the refresh executor, unless the same calculation is already running
+     */
+    private CompletableFuture<UserStatsDTO> refresh(User user, StatsPeriod period, Long version) {
+        String key = user.getDiscordId() + ":" + period.name() + ":" + version;
+        CompletableFuture<UserStatsDTO> created = new CompletableFuture<>();
+        CompletableFuture<UserStatsDTO> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            return running;
+        }
+
+        refreshExecutor.execute(() -> {
+            try {
+                UserStatsDTO stats = readOnlyTransaction.execute(status -> calculateStats(user, period));
+
+                // Cache result under the generation it was read for: if stats changed meanwhile, it is never served
+                if (version != null) {
+                    statsCache.put(user.getDiscordId(), period, version, stats);
+                }
+                created.complete(stats);
+            } catch (RuntimeException e) {
+                log.warn("Failed to calculate {} stats for user {}", period, user.getDiscordId(), e);
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        });
+        return created;
     }
 
     /**
      * Calculate statistics for a user and period
      */
     private UserStatsDTO calculateStats(User user, StatsPeriod period) {
-        Instant startDate = period.getStartDate().atStartOfDay(ZoneId.systemDefault()).toInstant();
-        Instant endDate = period.getEndDate().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
-
         // Fetch aggregate user stats
         UserStats userStats = userStatsRepository.findByUser(user)
                 .orElse(createDefaultUserStats(user));
@@ -75,7 +147,7 @@ public class StatsService {
         if (period == StatsPeriod.ALL_TIME) {
             return buildAllTimeStats(builder, user, userStats);
         } else {
-            return buildPeriodStats(builder, user, userStats, startDate, endDate, period);
+            return buildPeriodStats(builder, user, userStats, period);
         }
     }
 
@@ -100,6 +172,7 @@ public class StatsService {
 
         // Calculate average per day (since first session)
         Long daysSinceStart = calculateDaysSinceFirstSession(user);
+        builder.dayCount(daysSinceStart.intValue());
         if (daysSinceStart > 0) {
             int avgPerDay = (int) (userStats.getTotalFocusMinutes() / daysSinceStart);
             builder.averageFocusPerDay(avgPerDay);
@@ -113,61 +186,52 @@ public class StatsService {
     }
 
     /**
-     * Build period-specific statistics
+     * Build period-specific statistics from a single aggregate query over the daily rollup
      */
     private UserStatsDTO buildPeriodStats(UserStatsDTO.UserStatsDTOBuilder builder,
                                           User user, UserStats userStats,
-                                          Instant startDate, Instant endDate,
                                           StatsPeriod period) {
-        // Count sessions
-        Long completed = sessionRepository.countCompletedByUserAndDateRange(user, startDate, endDate);
-        Long total = sessionRepository.countByUserAndDateRange(user, startDate, endDate);
-        Long interrupted = sessionRepository.countInterruptedByUserAndDateRange(user, startDate, endDate);
-
-        // Sum focus minutes
-        Integer focusMinutes = sessionRepository.sumFocusMinutesByUserAndDateRange(user, startDate, endDate);
+        // daily_stats is keyed by the user's local date, so the window is too
+        ZoneId zone = user.getZoneId();
+        PeriodStats periodStats = periodStatsRepository.findPeriodStats(user.getId(),
+                period.getPreviousPeriodStart(zone), period.getStartDate(zone), period.getEndDate(zone));
 
-        // Count tasks
-        Long tasksCompleted = taskRepository.countCompletedByUserAndDateRange(user, startDate, endDate);
-        Long tasksActive = taskRepository.countActiveTasksByUser(user);
+        int focusMinutes = periodStats.focusMinutes();
 
         // Calculate trend
-        Double trend = calculateTrend(user, period, focusMinutes);
+        Double trend = calculateTrend(periodStats.previousFocusMinutes(), focusMinutes);
 
         // Build daily breakdown
-        int[] dailyBreakdown = buildDailyBreakdown(user, startDate, endDate, period);
-        Map<LocalDate, Integer> dailyFocusMap = buildDailyFocusMap(user, startDate, endDate);
-
-        // Time distribution
-        Long morning = sessionRepository.countMorningSessions(user, startDate, endDate);
-        Long afternoon = sessionRepository.countAfternoonSessions(user, startDate, endDate);
-        Long evening = sessionRepository.countEveningSessions(user, startDate, endDate);
+        int[] dailyBreakdown = buildDailyBreakdown(periodStats.dailySessionsCompleted(), period, zone);
+        Map<LocalDate, Integer> dailyFocusMap = buildDailyFocusMap(periodStats.dailyFocusMinutes());
 
         // Most productive day
-        LocalDate mostProductiveDay = findMostProductiveDay(user, startDate, endDate);
+        LocalDate mostProductiveDay = findMostProductiveDay(dailyFocusMap);
         Integer mostProductiveDayMinutes = mostProductiveDay != null ?
                 dailyFocusMap.getOrDefault(mostProductiveDay, 0) : 0;
 
         // Calculate average per day
-        long dayCount = period.getDayCount();
+        long dayCount = period.getDayCount(zone);
         int avgPerDay = dayCount > 0 ? (int) (focusMinutes / dayCount) : 0;
 
         builder
                 .totalFocusMinutes(focusMinutes)
                 .averageFocusPerDay(avgPerDay)
-                .sessionsCompleted(completed.intValue())
-                .sessionsTotal(total.intValue())
-                .sessionsInterrupted(interrupted.intValue())
-                .tasksCompleted(tasksCompleted.intValue())
-                .tasksActive(tasksActive.intValue())
+                .sessionsCompleted(periodStats.sessionsCompleted())
+                .sessionsTotal(periodStats.sessionsTotal())
+                .sessionsInterrupted(periodStats.sessionsTotal() - periodStats.sessionsCompleted())
+                .tasksCompleted(periodStats.tasksCompleted())
+                .tasksActive(periodStats.tasksActive())
                 .currentStreak(userStats.getCurrentStreak())
                 .bestStreak(userStats.getBestStreak())
                 .trendPercentage(trend)
+                .previousPeriodFocusMinutes(periodStats.previousFocusMinutes())
+                .dayCount((int) dayCount)
                 .dailyBreakdown(dailyBreakdown)
                 .dailyFocusMinutes(dailyFocusMap)
-                .morningSessionsCount(morning.intValue())
-                .afternoonSessionsCount(afternoon.intValue())
-                .eveningSessionsCount(evening.intValue())
+                .morningSessionsCount(periodStats.morningSessions())
+                .afternoonSessionsCount(periodStats.afternoonSessions())
+                .eveningSessionsCount(periodStats.eveningSessions())
                 .mostProductiveDay(mostProductiveDay)
                 .mostProductiveDayMinutes(mostProductiveDayMinutes)
                 .level(userStats.getLevel())
@@ -185,16 +249,7 @@ public class StatsService {
     /**
      * Calculate trend percentage compared to previous period
      */
-    private Double calculateTrend(User user, StatsPeriod period, Integer currentMinutes) {
-        if (period == StatsPeriod.ALL_TIME) {
-            return 0.0;
-        }
-
-        Instant prevStart = period.getPreviousPeriodStart().atStartOfDay(ZoneId.systemDefault()).toInstant();
-        Instant prevEnd = period.getPreviousPeriodEnd().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
-
-        Integer previousMinutes = sessionRepository.sumFocusMinutesByUserAndDateRange(user, prevStart, prevEnd);
-
+    private Double calculateTrend(int previousMinutes, int currentMinutes) {
         if (previousMinutes == 0) {
             return currentMinutes > 0 ? 100.0 : 0.0;
         }
@@ -204,74 +259,39 @@ public class StatsService {
     }
 
     /**
-     * Build daily breakdown array for visualization
+     * Build daily breakdown array of completed sessions for visualization
      */
-    private int[] buildDailyBreakdown(User user, Instant startDate, Instant endDate, StatsPeriod period) {
-        List<Object[]> dailyCounts = sessionRepository.countSessionsByDate(user, startDate, endDate);
-
-        int days = (int) period.getDayCount();
+    private int[] buildDailyBreakdown(Map<LocalDate, Integer> dailySessions, StatsPeriod period, ZoneId zone) {
+        int days = (int) period.getDayCount(zone);
         int[] breakdown = new int[Math.min(days, 30)]; // Max 30 days for display
 
-        Map<LocalDate, Integer> countMap = dailyCounts.stream()
-                .collect(Collectors.toMap(
-                        row -> convertToLocalDate(row[0]), // FIX: Conversion SQL Date -> LocalDate
-                        row -> ((Long) row[1]).intValue()
-                ));
-
-        LocalDate start = period.getStartDate();
+        LocalDate start = period.getStartDate(zone);
         for (int i = 0; i < breakdown.length; i++) {
-            LocalDate date = start.plusDays(i);
-            breakdown[i] = countMap.getOrDefault(date, 0);
+            breakdown[i] = dailySessions.getOrDefault(start.plusDays(i), 0);
         }
 
         return breakdown;
     }
 
     /**
-     * Build daily focus minutes map
+     * Build daily focus minutes map, for days with focus time
      */
-    private Map<LocalDate, Integer> buildDailyFocusMap(User user, Instant startDate, Instant endDate) {
-        List<Object[]> dailyMinutes = sessionRepository.sumFocusMinutesByDate(user, startDate, endDate);
-
-        return dailyMinutes.stream()
-                .collect(Collectors.toMap(
-                        row -> convertToLocalDate(row[0]), // FIX: Conversion SQL Date -> LocalDate
-                        row -> ((Long) row[1]).intValue()
-                ));
+    private Map<LocalDate, Integer> buildDailyFocusMap(Map<LocalDate, Integer> dailyFocusMinutes) {
+        return dailyFocusMinutes.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
     /**
      * Find most productive day in period
      */
-    private LocalDate findMostProductiveDay(User user, Instant startDate, Instant endDate) {
-        List<Object[]> dailyMinutes = sessionRepository.sumFocusMinutesByDate(user, startDate, endDate);
-
-        return dailyMinutes.stream()
-                .max(Comparator.comparing(row -> (Long) row[1]))
-                .map(row -> convertToLocalDate(row[0])) // FIX: Conversion SQL Date -> LocalDate
+    private LocalDate findMostProductiveDay(Map<LocalDate, Integer> dailyFocusMap) {
+        return dailyFocusMap.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
                 .orElse(null);
     }
 
-    /**
-     * Convert java.sql.Date or java.time.LocalDate to LocalDate
-     * Handles both types returned by different database drivers
-     */
-    private LocalDate convertToLocalDate(Object dateObject) {
-        if (dateObject == null) {
-            return null;
-        }
-
-        if (dateObject instanceof LocalDate localDate) {
-            return localDate;
-        }
-
-        if (dateObject instanceof java.sql.Date date) {
-            return date.toLocalDate();
-        }
-
-        throw new IllegalArgumentException("Cannot convert " + dateObject.getClass() + " to LocalDate");
-    }
-
     /**
      * Calculate XP required for a level
      */
@@ -283,17 +303,15 @@ public class StatsService {
      * Calculate days since first session
      */
     private Long calculateDaysSinceFirstSession(User user) {
-        List<PomodoroSession> allSessions = sessionRepository.findByUserOrderByStartTimeDesc(user);
+        LocalDate firstDate = dailyStatsRepository.findFirstStatDate(user.getId());
 
-        if (allSessions.isEmpty()) {
+        if (firstDate == null) {
             return 0L;
         }
 
-        PomodoroSession firstSession = allSessions.get(allSessions.size() - 1);
-        LocalDate firstDate = firstSession.getStartTime().atZone(ZoneId.systemDefault()).toLocalDate();
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(user.getZoneId());
 
-        return ChronoUnit.DAYS.between(firstDate, today) + 1;
+        return Math.max(ChronoUnit.DAYS.between(firstDate, today) + 1, 1);
     }
 
     /**
@@ -334,24 +352,73 @@ public class StatsService {
     public void updateStatsAfterSession(User user, PomodoroSession session) {
         UserStats stats = getOrCreateUserStats(user); //NOSONAR
 
+        applySession(stats, session);
+
+        userStatsRepository.save(stats);
+        dailyStatsRepository.recordSessions(List.of(session));
+
+        // Refresh cached results in place
+        statsCache.update(Map.of(user.getDiscordId(), sessionsChange(stats, List.of(session))));
+
+        log.debug("Updated stats for user {}", user.getDiscordId());
+    }
+
+    /**
+     * Update stats for a batch of ended sessions: one query to load every user's stats,
+     * then one UPDATE per user (UserStats uses @DynamicUpdate, whose statements are not batched)
+     *
+     * @return the updated stats, one per user
+     */
+    @Transactional
+    public Collection<UserStats> updateStatsAfterSessions(List<PomodoroSession> sessions) {
+        if (sessions.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, User> users = new LinkedHashMap<>();
+        sessions.forEach(session -> users.putIfAbsent(session.getUser().getId(), session.getUser()));
+
+        Map<Long, UserStats> statsByUser = userStatsRepository.findByUserIn(users.values()).stream()
+                .collect(Collectors.toMap(stats -> stats.getUser().getId(), stats -> stats));
+
+        for (PomodoroSession session : sessions) {
+            UserStats stats = statsByUser.computeIfAbsent(session.getUser().getId(),
+                    id -> createDefaultUserStats(users.get(id)));
+            applySession(stats, session);
+        }
+
+        userStatsRepository.saveAll(statsByUser.values());
+        dailyStatsRepository.recordSessions(sessions);
+
+        // Refresh cached results in place
+        Map<Long, List<PomodoroSession>> sessionsByUser = sessions.stream()
+                .collect(Collectors.groupingBy(session -> session.getUser().getId()));
+        Map<String, BiFunction<StatsPeriod, UserStatsDTO, UserStatsDTO>> changes = new HashMap<>();
+        sessionsByUser.forEach((userId, userSessions) -> changes.put(users.get(userId).getDiscordId(),
+                sessionsChange(statsByUser.get(userId), userSessions)));
+        statsCache.update(changes);
+
+        log.debug("Updated stats for {} users", statsByUser.size());
+        return statsByUser.values();
+    }
+
+    /**
+     * Apply an ended session to the user's counters and streak
+     */
+    private void applySession(UserStats stats, PomodoroSession session) {
         if (Boolean.TRUE.equals(session.getCompleted())) {
             stats.incrementSessionsCompleted();
             stats.addFocusMinutes(session.getDurationMinutes());
+            stats.recordSessionHour(session.getStartTime().atZone(session.getUser().getZoneId()).getHour());
         } else if (Boolean.TRUE.equals(session.getInterrupted())) {
             stats.incrementSessionsInterrupted();
         }
 
-        stats.setLastSessionDate(session.getStartTime());
-
-        // Update streak
-        updateStreak(stats, session.getStartTime());
-
-        userStatsRepository.save(stats);
-
-        // Invalidate cache
-        invalidateStatsCache(user.getDiscordId());
-
-        log.debug("Updated stats for user {}", user.getDiscordId());
+        // The streak is measured from the previous session date, so it goes first
+        updateStreak(stats, session.getStartTime(), session.getUser().getZoneId());
+        if (stats.getLastSessionDate() == null || session.getStartTime().isAfter(stats.getLastSessionDate())) {
+            stats.setLastSessionDate(session.getStartTime());
+        }
     }
 
     /**
@@ -362,16 +429,131 @@ public class StatsService {
         UserStats stats = getOrCreateUserStats(user); //NOSONAR
         stats.incrementTasksCompleted();
         userStatsRepository.save(stats);
+        LocalDate today = LocalDate.now(user.getZoneId());
+        dailyStatsRepository.recordTaskCompleted(user.getId(), today);
+
+        // Refresh cached results in place
+        int totalTasksCompleted = stats.getTotalTasksCompleted();
+        statsCache.update(Map.of(user.getDiscordId(), (period, cached) -> {
+            UserStatsDTO updated = cached.toBuilder().build();
+            if (period == StatsPeriod.ALL_TIME) {
+                updated.setTasksCompleted(totalTasksCompleted);
+            } else if (isInPeriod(period, today, user.getZoneId())) {
+                updated.setTasksCompleted(plus(updated.getTasksCompleted(), 1));
+                if (updated.getTasksActive() != null) {
+                    updated.setTasksActive(Math.max(updated.getTasksActive() - 1, 0));
+                }
+            }
+            return updated;
+        }));
+    }
+
+    /**
+     * Change applying ended sessions to a cached result. All-time figures are taken from the
+     * updated stats row; period figures get the sessions that fall in the period added.
+     */
+    private BiFunction<StatsPeriod, UserStatsDTO, UserStatsDTO> sessionsChange(UserStats stats,
+                                                                             List<PomodoroSession> sessions) {
+        // Captured now: the change runs after commit
+        int totalFocusMinutes = stats.getTotalFocusMinutes();
+        int totalCompleted = stats.getTotalSessionsCompleted();
+        int totalInterrupted = stats.getTotalSessionsInterrupted();
+        int currentStreak = stats.getCurrentStreak();
+        int bestStreak = stats.getBestStreak();
+        ZoneId zone = stats.getUser().getZoneId();
+        List<SessionDelta> deltas = sessions.stream()
+                .map(session -> new SessionDelta(
+                        session.getStartTime().atZone(zone),
+                        Boolean.TRUE.equals(session.getCompleted()),
+                        session.getDurationMinutes()))
+                .toList();
+
+        return (period, cached) -> {
+            UserStatsDTO updated = cached.toBuilder()
+                    .dailyBreakdown(cached.getDailyBreakdown() != null ? cached.getDailyBreakdown().clone() : null)
+                    .dailyFocusMinutes(cached.getDailyFocusMinutes() != null
+                            ? new HashMap<>(cached.getDailyFocusMinutes()) : null)
+                    .currentStreak(currentStreak)
+                    .bestStreak(bestStreak)
+                    .build();
+
+            if (period == StatsPeriod.ALL_TIME) {
+                updated.setTotalFocusMinutes(totalFocusMinutes);
+                updated.setSessionsCompleted(totalCompleted);
+                updated.setSessionsInterrupted(totalInterrupted);
+                updated.setSessionsTotal(totalCompleted + totalInterrupted);
+                updated.setDayCount(Math.max(updated.getDayCount() != null ? updated.getDayCount() : 0, 1));
+            } else {
+                deltas.stream()
+                        .filter(delta -> isInPeriod(period, delta.start().toLocalDate(), zone))
+                        .forEach(delta -> applySessionDelta(updated, period, zone, delta));
+            }
+
+            if (updated.getDayCount() != null && updated.getDayCount() > 0) {
+                updated.setAverageFocusPerDay(updated.getTotalFocusMinutes() / updated.getDayCount());
+            }
+            if (period != StatsPeriod.ALL_TIME && updated.getPreviousPeriodFocusMinutes() != null) {
+                updated.setTrendPercentage(calculateTrend(updated.getPreviousPeriodFocusMinutes(),
+                        updated.getTotalFocusMinutes()));
+            }
+            updated.calculateCompletionRate();
+            updated.calculateIsImproving();
+            return updated;
+        };
+    }
+
+    private void applySessionDelta(UserStatsDTO stats, StatsPeriod period, ZoneId zone, SessionDelta delta) {
+        stats.setSessionsTotal(plus(stats.getSessionsTotal(), 1));
+        if (!delta.completed()) {
+            stats.setSessionsInterrupted(plus(stats.getSessionsInterrupted(), 1));
+            return;
+        }
+
+        LocalDate date = delta.start().toLocalDate();
+        stats.setSessionsCompleted(plus(stats.getSessionsCompleted(), 1));
+        stats.setTotalFocusMinutes(plus(stats.getTotalFocusMinutes(), delta.minutes()));
+
+        int hour = delta.start().getHour();
+        if (hour < 12) {
+            stats.setMorningSessionsCount(plus(stats.getMorningSessionsCount(), 1));
+        } else if (hour < 18) {
+            stats.setAfternoonSessionsCount(plus(stats.getAfternoonSessionsCount(), 1));
+        } else {
+            stats.setEveningSessionsCount(plus(stats.getEveningSessionsCount(), 1));
+        }
+
+        int[] breakdown = stats.getDailyBreakdown();
+        int index = (int) ChronoUnit.DAYS.between(period.getStartDate(zone), date);
+        if (breakdown != null && index >= 0 && index < breakdown.length) {
+            breakdown[index]++;
+        }
+
+        if (stats.getDailyFocusMinutes() != null) {
+            stats.getDailyFocusMinutes().merge(date, delta.minutes(), Integer::sum);
+            LocalDate mostProductiveDay = findMostProductiveDay(stats.getDailyFocusMinutes());
+            stats.setMostProductiveDay(mostProductiveDay);
+            stats.setMostProductiveDayMinutes(stats.getDailyFocusMinutes().getOrDefault(mostProductiveDay, 0));
+        }
+    }
 
-        // Invalidate cache
-        invalidateStatsCache(user.getDiscordId());
+    private boolean isInPeriod(StatsPeriod period, LocalDate date, ZoneId zone) {
+        return !date.isBefore(period.getStartDate(zone)) && !date.isAfter(period.getEndDate(zone));
     }
 
+    private int plus(Integer value, int delta) {
+        return (value != null ? value : 0) + delta;
+    }
+
+    /**
+     * An ended session, as seen from the user's timezone
+     */
+    private record SessionDelta(ZonedDateTime start, boolean completed, int minutes) {}
+
     /**
      * Update streak based on last session date
      */
-    private void updateStreak(UserStats stats, Instant sessionTime) {
-        LocalDate sessionDate = sessionTime.atZone(ZoneId.systemDefault()).toLocalDate();
+    private void updateStreak(UserStats stats, Instant sessionTime, ZoneId zone) {
+        LocalDate sessionDate = sessionTime.atZone(zone).toLocalDate();
 
         if (stats.getLastSessionDate() == null) {
             // First session
@@ -379,55 +561,15 @@ public class StatsService {
             return;
         }
 
-        LocalDate lastDate = stats.getLastSessionDate().atZone(ZoneId.systemDefault()).toLocalDate();
+        LocalDate lastDate = stats.getLastSessionDate().atZone(zone).toLocalDate();
         long daysBetween = ChronoUnit.DAYS.between(lastDate, sessionDate);
 
         if (daysBetween == 1) {
             // Consecutive day, increment
             stats.updateStreak(stats.getCurrentStreak() + 1);
-        } else if(daysBetween != 0) {
+        } else if (daysBetween > 1) {
             // Streak broken, reset
             stats.updateStreak(1);
         }
     }
-
-    /**
-     * Get cached stats
-     */
-    private UserStatsDTO getCachedStats(String cacheKey) {
-        try {
-            Object cached = redisTemplate.opsForValue().get(cacheKey);
-            return cached != null ? (UserStatsDTO) cached : null;
-        } catch (Exception e) {
-            log.warn("Failed to get cached stats: {}", e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * Cache stats
-     */
-    private void cacheStats(String cacheKey, UserStatsDTO stats) {
-        try {
-            redisTemplate.opsForValue().set(cacheKey, stats, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
-        } catch (Exception e) {
-            log.warn("Failed to cache stats: {}", e.getMessage());
-        }
-    }
-
-    /**
-     * Invalidate all cached stats for user
-     */
-    public void invalidateStatsCache(String discordId) {
-        try {
-            String pattern = STATS_CACHE_KEY + discordId + ":*";
-            Set<String> keys = redisTemplate.keys(pattern);
-            if (!keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.debug("Invalidated {} cached stats for user {}", keys.size(), discordId);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to invalidate stats cache: {}", e.getMessage());
-        }
-    }
-}
\ No newline at end of file
+}
@@ -2,11 +2,13 @@ package com.tomabot.service;
 
 import com.tomabot.model.entity.Task;
 import com.tomabot.model.entity.User;
-import com.tomabot.model.enums.XPSource;
+import com.tomabot.model.event.TaskCompletedEvent;
+import com.tomabot.repository.RewardJdbcRepository;
 import com.tomabot.repository.TaskRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -18,8 +20,8 @@ public class TaskService {
 
     private final TaskRepository taskRepository;
     private final StatsService statsService;
-    private final ExperienceService experienceService;
-    private final AchievementService achievementService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RewardJdbcRepository rewardJdbcRepository;
 
     @Value("${tomabot.limits.freemium.max-tasks:5}")
     private Integer freemiumMaxTasks;
@@ -74,15 +76,9 @@ public class TaskService {
         // Update stats after task completion
         statsService.updateStatsAfterTaskCompletion(user);
 
-        // Grant XP for completing task
-        try {
-            experienceService.grantXP(user, XPSource.TASK_COMPLETED, task.getId());
-            log.info("Granted task completion XP to user {}", user.getDiscordId());
-
-            achievementService.checkAndUnlockAchievements(user);
-        } catch (Exception e) {
-            log.error("Failed to grant task XP to user {}", user.getDiscordId(), e);
-        }
+        // XP and achievements are granted by the RewardPipeline once this commits
+        rewardJdbcRepository.insertPendingTaskReward(user.getId(), task.getId());
+        eventPublisher.publishEvent(new TaskCompletedEvent(task.getId(), user.getId(), user.getDiscordId()));
 
         log.info("Completed task {} for user {}", taskId, user.getDiscordId());
         return task;
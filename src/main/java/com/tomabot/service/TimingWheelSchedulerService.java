@@ -0,0 +1,84 @@
+package com.tomabot.service;
+
+import com.tomabot.model.entity.PomodoroSession;
+import com.tomabot.repository.PomodoroSessionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * In-process backend: session completions live in a hierarchical timing wheel.
+ * Scheduling costs no database write; pending timers are rebuilt from the
+ * sessions table on startup.
+ */
+@Service
+@ConditionalOnProperty(prefix = "tomabot.scheduler", name = "backend", havingValue = "wheel", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class TimingWheelSchedulerService implements SchedulerService {
+
+    private final PomodoroSessionRepository sessionRepository;
+    private final SessionCompletionHandler sessionCompletionHandler;
+
+    @Value("${tomabot.scheduler.wheel.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${tomabot.scheduler.wheel.wheel-size:512}")
+    private int wheelSize;
+
+    private HierarchicalTimingWheel<Long> wheel;
+
+    @PostConstruct
+    public void start() {
+        // Expired timers only enqueue into the completion batcher, so they run on the ticker thread
+        wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, Runnable::run, "tomabot-timing-wheel");
+        wheel.start();
+        log.info("Timing wheel started ({} ms tick, {} slots)", tickMs, wheelSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+    }
+
+    @Override
+    public void scheduleSessionCompletion(Long sessionId, String discordId, Instant endTime) {
+        wheel.schedule(sessionId, endTime,
+                () -> sessionCompletionHandler.submit(sessionId, discordId));
+        log.debug("Scheduled completion for session {} at {}", sessionId, endTime);
+    }
+
+    @Override
+    public void cancelSessionJob(Long sessionId, String discordId) {
+        if (wheel.cancel(sessionId)) {
+            log.debug("Cancelled completion for session {}", sessionId);
+        }
+    }
+
+    /**
+     * Rebuild timers for sessions that were running when the bot stopped.
+     * Sessions already past their end time fire on the next tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void recoverPendingSessions() {
+        List<PomodoroSession> pending = sessionRepository.findPendingWithUser();
+
+        for (PomodoroSession session : pending) {
+            Instant endTime = session.getStartTime().plusSeconds(session.getDurationMinutes() * 60L);
+            scheduleSessionCompletion(session.getId(), session.getUser().getDiscordId(), endTime);
+        }
+
+        log.info("Recovered {} pending session completions", pending.size());
+    }
+}
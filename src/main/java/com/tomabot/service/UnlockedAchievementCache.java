@@ -0,0 +1,197 @@
+package com.tomabot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tomabot.repository.UserAchievementRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Each user's unlocked achievements as a bitmap indexed by achievement id,
+ * kept in Redis ({@code achievements:unlocked:{userId}}) with a short-lived local copy.
+ * Bit 0 is never an achievement id: it marks a bitmap that was built from user_achievements,
+ * as opposed to one holding only bits claimed since.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UnlockedAchievementCache {
+
+    private static final String KEY_PREFIX = "achievements:unlocked:";
+    private static final int BUILT_BIT = 0;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserAchievementRepository userAchievementRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${tomabot.achievements.unlock-cache.local-ttl-ms:30000}")
+    private long localTtlMs;
+
+    @Value("${tomabot.achievements.unlock-cache.local-max-entries:10000}")
+    private int localMaxEntries;
+
+    private Cache<Long, BitSet> local;
+
+    @PostConstruct
+    public void start() {
+        local = Caffeine.newBuilder()
+                .maximumSize(localMaxEntries)
+                .expireAfterWrite(Duration.ofMillis(localTtlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "achievements.unlocked.local");
+    }
+
+    /**
+     * Unlocked achievement ids of a user. The returned set must not be modified.
+     */
+    public BitSet get(Long userId) {
+        BitSet cached = local.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        BitSet bits;
+        try {
+            bits = load(userId);
+        } catch (Exception e) {
+            log.warn("Unlock cache unavailable for user {}, reading user_achievements: {}", userId, e.getMessage());
+            return fromIds(userAchievementRepository.findAchievementIdsByUserId(userId));
+        }
+
+        local.put(userId, bits);
+        return bits;
+    }
+
+    public boolean isUnlocked(Long userId, Long achievementId) {
+        return get(userId).get(Math.toIntExact(achievementId));
+    }
+
+    /**
+     * Atomically mark an achievement unlocked. Returns false when it already was,
+     * e.g. unlocked by another instance since this one read the bitmap.
+     * The bit is cleared again if the surrounding transaction rolls back.
+     */
+    public boolean claim(Long userId, Long achievementId) {
+        Boolean previous;
+        try {
+            previous = stringRedisTemplate.opsForValue().setBit(key(userId), achievementId, true);
+        } catch (Exception e) {
+            // The stats row lock already serializes unlocks of a user; the unique key backs it up
+            log.warn("Could not claim achievement {} for user {} in Redis: {}", achievementId, userId, e.getMessage());
+            return true;
+        }
+        // Either way the local copy is behind: the next read takes the bitmap from Redis
+        local.invalidate(userId);
+        if (Boolean.TRUE.equals(previous)) {
+            return false;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(userId, achievementId);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Drop a user's bitmap so the next read rebuilds it from user_achievements
+     */
+    public void evict(Long userId) {
+        local.invalidate(userId);
+        try {
+            stringRedisTemplate.delete(key(userId));
+        } catch (Exception e) {
+            log.warn("Could not evict unlock cache for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void release(Long userId, Long achievementId) {
+        local.invalidate(userId);
+        try {
+            stringRedisTemplate.opsForValue().setBit(key(userId), achievementId, false);
+        } catch (Exception e) {
+            log.warn("Could not release achievement {} for user {}, evicting: {}", achievementId, userId, e.getMessage());
+            evict(userId);
+        }
+    }
+
+    private BitSet load(Long userId) {
+        byte[] raw = stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(key(userId).getBytes(StandardCharsets.UTF_8)));
+
+        BitSet bits = fromRedis(raw);
+        boolean built = bits.get(BUILT_BIT);
+        bits.clear(BUILT_BIT);
+        return built ? bits : rebuild(userId, bits);
+    }
+
+    /**
+     * Set the bits of every stored unlock. SETBIT only ever adds, so bits claimed
+     * concurrently are kept.
+     */
+    private BitSet rebuild(Long userId, BitSet claimed) {
+        BitSet bits = fromIds(userAchievementRepository.findAchievementIdsByUserId(userId));
+        String key = key(userId);
+
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            bits.stream().forEach(id -> redis.setBit(key, id, true));
+            redis.setBit(key, BUILT_BIT, true);
+            return null;
+        });
+
+        log.debug("Rebuilt unlock cache for user {} ({} achievements)", userId, bits.cardinality());
+        bits.or(claimed);
+        return bits;
+    }
+
+    /**
+     * Redis numbers bitmap bits from the most significant bit of each byte
+     */
+    private BitSet fromRedis(byte[] raw) {
+        BitSet bits = new BitSet();
+        if (raw == null) {
+            return bits;
+        }
+        for (int i = 0; i < raw.length; i++) {
+            for (int bit = 0; bit < 8; bit++) {
+                if ((raw[i] & (0x80 >>> bit)) != 0) {
+                    bits.set(i * 8 + bit);
+                }
+            }
+        }
+        return bits;
+    }
+
+    private BitSet fromIds(Collection<Long> ids) {
+        BitSet bits = new BitSet();
+        ids.forEach(id -> bits.set(Math.toIntExact(id)));
+        return bits;
+    }
+
+    private String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
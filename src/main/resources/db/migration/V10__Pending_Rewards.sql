@@ -0,0 +1,15 @@
+-- V10__Pending_Rewards.sql
+-- Rewards owed for committed completions. A row is inserted in the completion transaction
+-- and deleted by the transaction that grants the reward, so rewards lost in flight
+-- (crash, redeploy) are found again and granted once.
+
+CREATE TABLE pending_rewards (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    source VARCHAR(50) NOT NULL,
+    reference_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uq_pending_rewards_source_reference UNIQUE (source, reference_id)
+);
+
+CREATE INDEX idx_pending_rewards_created_at ON pending_rewards(created_at);
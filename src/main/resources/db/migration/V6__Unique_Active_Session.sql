@@ -0,0 +1,20 @@
+-- V6__Unique_Active_Session.sql
+-- At most one running session per user, enforced by the database
+
+-- Interrupt duplicate running sessions left by concurrent /start, keeping the most recent one
+UPDATE sessions s
+SET interrupted = TRUE, end_time = CURRENT_TIMESTAMP
+WHERE s.completed = FALSE
+  AND s.interrupted = FALSE
+  AND EXISTS (
+      SELECT 1 FROM sessions newer
+      WHERE newer.user_id = s.user_id
+        AND newer.completed = FALSE
+        AND newer.interrupted = FALSE
+        AND (newer.start_time > s.start_time
+             OR (newer.start_time = s.start_time AND newer.id > s.id))
+  );
+
+CREATE UNIQUE INDEX idx_sessions_one_active_per_user
+    ON sessions(user_id)
+    WHERE completed = FALSE AND interrupted = FALSE;
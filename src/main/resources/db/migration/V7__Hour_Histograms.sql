@@ -0,0 +1,50 @@
+-- V7__Hour_Histograms.sql
+-- Completed sessions per hour of day (index 1 = 00:00-00:59), in each user's timezone
+
+ALTER TABLE user_stats ADD COLUMN hour_histogram INTEGER[] NOT NULL DEFAULT array_fill(0, ARRAY[24]);
+ALTER TABLE daily_stats ADD COLUMN hour_histogram INTEGER[] NOT NULL DEFAULT array_fill(0, ARRAY[24]);
+
+-- Backfill from session history. Runs before the application starts completing sessions,
+-- so no live increment can be lost.
+CREATE TEMPORARY TABLE session_hours AS
+WITH local_sessions AS (
+    SELECT s.user_id,
+           (s.start_time AT TIME ZONE 'UTC') AT TIME ZONE
+               CASE WHEN u.timezone IN (SELECT name FROM pg_timezone_names) THEN u.timezone ELSE 'UTC' END
+               AS local_start
+    FROM sessions s
+    JOIN users u ON u.id = s.user_id
+    WHERE s.completed = TRUE
+)
+SELECT user_id,
+       local_start::date AS stat_date,
+       EXTRACT(HOUR FROM local_start)::INTEGER AS hour,
+       COUNT(*)::INTEGER AS sessions
+FROM local_sessions
+GROUP BY 1, 2, 3;
+
+UPDATE user_stats us
+SET hour_histogram = h.histogram
+FROM (
+    SELECT u.user_id, array_agg(COALESCE(c.sessions, 0) ORDER BY hr) AS histogram
+    FROM (SELECT DISTINCT user_id FROM session_hours) u
+    CROSS JOIN generate_series(0, 23) AS hr
+    LEFT JOIN (
+        SELECT user_id, hour, SUM(sessions)::INTEGER AS sessions
+        FROM session_hours
+        GROUP BY user_id, hour
+    ) c ON c.user_id = u.user_id AND c.hour = hr
+    GROUP BY u.user_id
+) h
+WHERE us.user_id = h.user_id;
+
+INSERT INTO daily_stats (user_id, stat_date, hour_histogram)
+SELECT d.user_id, d.stat_date, array_agg(COALESCE(sh.sessions, 0) ORDER BY hr)
+FROM (SELECT DISTINCT user_id, stat_date FROM session_hours) d
+CROSS JOIN generate_series(0, 23) AS hr
+LEFT JOIN session_hours sh
+       ON sh.user_id = d.user_id AND sh.stat_date = d.stat_date AND sh.hour = hr
+GROUP BY d.user_id, d.stat_date
+ON CONFLICT (user_id, stat_date) DO UPDATE SET hour_histogram = EXCLUDED.hour_histogram;
+
+DROP TABLE session_hours;
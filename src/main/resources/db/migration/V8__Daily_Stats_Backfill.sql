@@ -0,0 +1,40 @@
+-- V8__Daily_Stats_Backfill.sql
+-- Seed the daily_stats rollup from session and task history.
+-- Dates are in each user's timezone; hour_histogram was seeded by V7.
+
+CREATE TEMPORARY TABLE user_zones AS
+SELECT u.id AS user_id,
+       CASE WHEN u.timezone IN (SELECT name FROM pg_timezone_names) THEN u.timezone ELSE 'UTC' END AS zone
+FROM users u;
+
+INSERT INTO daily_stats AS d (user_id, stat_date, focus_minutes, sessions_completed, sessions_total, tasks_completed)
+SELECT user_id, stat_date,
+       SUM(focus_minutes), SUM(sessions_completed), SUM(sessions_total), SUM(tasks_completed)
+FROM (
+    SELECT s.user_id,
+           ((s.start_time AT TIME ZONE 'UTC') AT TIME ZONE z.zone)::date AS stat_date,
+           CASE WHEN s.completed THEN s.duration_minutes ELSE 0 END AS focus_minutes,
+           CASE WHEN s.completed THEN 1 ELSE 0 END AS sessions_completed,
+           1 AS sessions_total,
+           0 AS tasks_completed
+    FROM sessions s
+    JOIN user_zones z ON z.user_id = s.user_id
+    WHERE s.completed = TRUE OR s.interrupted = TRUE
+
+    UNION ALL
+
+    SELECT t.user_id,
+           ((t.completed_at AT TIME ZONE 'UTC') AT TIME ZONE z.zone)::date,
+           0, 0, 0, 1
+    FROM tasks t
+    JOIN user_zones z ON z.user_id = t.user_id
+    WHERE t.completed = TRUE AND t.completed_at IS NOT NULL
+) activity
+GROUP BY user_id, stat_date
+ON CONFLICT (user_id, stat_date) DO UPDATE SET
+    focus_minutes = EXCLUDED.focus_minutes,
+    sessions_completed = EXCLUDED.sessions_completed,
+    sessions_total = EXCLUDED.sessions_total,
+    tasks_completed = EXCLUDED.tasks_completed;
+
+DROP TABLE user_zones;
@@ -0,0 +1,4 @@
+-- V9__Streak_Expiry_Index.sql
+-- Hourly streak expiry only looks at rows with an active streak, oldest session first
+
+CREATE INDEX idx_user_stats_streak_expiry ON user_stats(last_session_date) WHERE current_streak > 0;
@@ -0,0 +1,84 @@
+package com.tomabot;
+
+import net.dv8tion.jda.api.JDA;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+
+/**
+ * Base for tests that run the application against real Postgres and Redis containers.
+ * Statements sent to the database are counted per thread, see {@link #countQueries(Runnable)}.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+@Import(IntegrationTest.QueryCounting.class)
+public abstract class IntegrationTest {
+
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    // The bot never connects to Discord in tests
+    @MockitoBean
+    protected JDA jda;
+
+    @DynamicPropertySource
+    static void containers(DynamicPropertyRegistry registry) {
+        // Started once and shared by every test class, like the cached application contexts
+        POSTGRES.start();
+        REDIS.start();
+
+        registry.add("DB_HOST", POSTGRES::getHost);
+        registry.add("DB_PORT", () -> POSTGRES.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT));
+        registry.add("DB_NAME", POSTGRES::getDatabaseName);
+        registry.add("DB_USER", POSTGRES::getUsername);
+        registry.add("DB_PASSWORD", POSTGRES::getPassword);
+        registry.add("REDIS_HOST", REDIS::getHost);
+        registry.add("REDIS_PORT", () -> REDIS.getMappedPort(6379));
+        registry.add("DISCORD_BOT_TOKEN", () -> "test");
+    }
+
+    /**
+     * Count what the block sends to the database from the current thread
+     */
+    protected static QueryCount countQueries(Runnable block) {
+        QueryCountHolder.clear();
+        block.run();
+        QueryCount count = QueryCountHolder.getGrandTotal();
+        QueryCountHolder.clear();
+        return count;
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class QueryCounting {
+
+        @Bean
+        static BeanPostProcessor queryCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                        return ProxyDataSourceBuilder.create(beanName, dataSource).countQuery().build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
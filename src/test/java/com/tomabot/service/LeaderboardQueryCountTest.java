@@ -0,0 +1,57 @@
+package com.tomabot.service;
+
+import com.tomabot.IntegrationTest;
+import com.tomabot.model.dto.LeaderboardEntryDTO;
+import com.tomabot.model.entity.User;
+import com.tomabot.model.enums.LeaderboardPeriod;
+import com.tomabot.model.enums.LeaderboardScope;
+import com.tomabot.model.enums.LeaderboardType;
+import net.ttddyy.dsproxy.QueryCount;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL cost of reading a leaderboard page: its entries are hydrated by one query, whatever the page size
+ */
+class LeaderboardQueryCountTest extends IntegrationTest {
+
+    private static final int USERS = 60;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Test
+    void pageIsHydratedByOneQueryWhateverItsSize() {
+        for (int n = 1; n <= USERS; n++) {
+            User user = userService.getOrCreateUser("20000" + n, "ranked" + n);
+            statsService.getOrCreateUserStats(user);
+        }
+        leaderboardService.rebuildLeaderboard(LeaderboardType.LEVEL, LeaderboardScope.GLOBAL, null);
+
+        List<Integer> pageSizes = List.of(1, 10, USERS);
+        List<QueryCount> counts = new ArrayList<>();
+        for (int pageSize : pageSizes) {
+            counts.add(countQueries(() -> {
+                List<LeaderboardEntryDTO> page = leaderboardService.getTopLeaderboard(LeaderboardType.LEVEL,
+                        LeaderboardPeriod.ALL_TIME, LeaderboardScope.GLOBAL, null, pageSize);
+                assertThat(page).hasSize(pageSize);
+            }));
+        }
+
+        assertThat(counts).allSatisfy(count -> {
+            assertThat(count.getSelect()).isEqualTo(1);
+            assertThat(count.getTotal()).isEqualTo(1);
+        });
+    }
+}
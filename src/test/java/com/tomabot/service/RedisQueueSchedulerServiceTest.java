@@ -0,0 +1,138 @@
+package com.tomabot.service;
+
+import com.tomabot.repository.PomodoroSessionRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Claims, leases and acknowledgements of the Redis completion queue, against a real Redis
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisQueueSchedulerServiceTest {
+
+    private static final String QUEUE_KEY = "scheduler:completions";
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static JedisConnectionFactory connectionFactory;
+
+    private StringRedisTemplate redis;
+    private SessionCompletionHandler handler;
+    private RedisQueueSchedulerService scheduler;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new JedisConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis = new StringRedisTemplate(connectionFactory);
+        redis.delete(QUEUE_KEY);
+
+        handler = mock(SessionCompletionHandler.class);
+        scheduler = new RedisQueueSchedulerService(redis, mock(PomodoroSessionRepository.class), handler);
+        ReflectionTestUtils.setField(scheduler, "batchSize", 100);
+        ReflectionTestUtils.setField(scheduler, "leaseSeconds", 60L);
+    }
+
+    @Test
+    void claimsOnlyDueEntriesAndLeasesThem() {
+        when(handler.submit(anyLong(), any())).thenReturn(new CompletableFuture<>());
+        Instant now = Instant.now();
+
+        scheduler.scheduleSessionCompletion(1L, "alice", now.minusSeconds(5));
+        scheduler.scheduleSessionCompletion(2L, "bob", now.minusSeconds(1));
+        scheduler.scheduleSessionCompletion(3L, "carol", now.plusSeconds(3600));
+
+        scheduler.pollDueCompletions();
+
+        verify(handler).submit(1L, "alice");
+        verify(handler).submit(2L, "bob");
+        verify(handler, never()).submit(eq(3L), any());
+
+        // Claimed entries stay queued, pushed back by the lease
+        long leaseFloor = now.plusSeconds(59).toEpochMilli();
+        assertThat(redis.opsForZSet().score(QUEUE_KEY, "1:alice")).isGreaterThan(leaseFloor);
+        assertThat(redis.opsForZSet().score(QUEUE_KEY, "2:bob")).isGreaterThan(leaseFloor);
+    }
+
+    @Test
+    void leasedEntryIsNotClaimedAgain() {
+        when(handler.submit(anyLong(), any())).thenReturn(new CompletableFuture<>());
+        scheduler.scheduleSessionCompletion(1L, "alice", Instant.now().minusSeconds(1));
+
+        scheduler.pollDueCompletions();
+        scheduler.pollDueCompletions();
+
+        verify(handler, times(1)).submit(1L, "alice");
+    }
+
+    @Test
+    void committedCompletionIsAcknowledged() {
+        when(handler.submit(anyLong(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        scheduler.scheduleSessionCompletion(1L, "alice", Instant.now().minusSeconds(1));
+
+        scheduler.pollDueCompletions();
+
+        assertThat(redis.opsForZSet().score(QUEUE_KEY, "1:alice")).isNull();
+    }
+
+    @Test
+    void unacknowledgedEntryIsRedeliveredOnceItsLeaseExpires() throws InterruptedException {
+        // A node that claimed the entry and died never completes the future
+        when(handler.submit(anyLong(), any())).thenReturn(new CompletableFuture<>());
+        ReflectionTestUtils.setField(scheduler, "leaseSeconds", 1L);
+        scheduler.scheduleSessionCompletion(1L, "alice", Instant.now().minusSeconds(1));
+
+        scheduler.pollDueCompletions();
+        Thread.sleep(1_100);
+        scheduler.pollDueCompletions();
+
+        verify(handler, times(2)).submit(1L, "alice");
+    }
+
+    @Test
+    void cancelledEntryIsNeverClaimed() {
+        scheduler.scheduleSessionCompletion(1L, "alice", Instant.now().minusSeconds(1));
+        scheduler.cancelSessionJob(1L, "alice");
+
+        scheduler.pollDueCompletions();
+
+        verify(handler, never()).submit(anyLong(), any());
+        assertThat(redis.opsForZSet().zCard(QUEUE_KEY)).isZero();
+    }
+}
@@ -0,0 +1,123 @@
+package com.tomabot.service;
+
+import com.tomabot.IntegrationTest;
+import com.tomabot.model.entity.PomodoroSession;
+import com.tomabot.model.entity.User;
+import com.tomabot.model.enums.SessionType;
+import com.tomabot.repository.PomodoroSessionRepository;
+import net.ttddyy.dsproxy.QueryCount;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL cost of completing a session and granting its rewards.
+ * The pipeline is replaced so the grant can be run, and counted, on the test thread.
+ */
+class RewardQueryCountTest extends IntegrationTest {
+
+    private static final AtomicInteger NEXT_USER = new AtomicInteger();
+
+    @MockitoBean
+    private RewardPipeline rewardPipeline;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @Autowired
+    private PomodoroService pomodoroService;
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private PomodoroSessionRepository sessionRepository;
+
+    @Test
+    void completionCostsFiveStatementsPerBatchPlusOneStatsUpdatePerUser() {
+        Map<Long, String> one = byId(runningSessions(1));
+        Map<Long, String> batch = byId(runningSessions(5));
+
+        QueryCount single = countQueries(() -> pomodoroService.completeSessions(one));
+        QueryCount batched = countQueries(() -> pomodoroService.completeSessions(batch));
+
+        // Sessions locked and loaded with their users, stats loaded; one batch each for sessions,
+        // daily_stats and pending_rewards, and one UPDATE of user_stats per user
+        // (@DynamicUpdate statements are not batched)
+        assertThat(single.getSelect()).isEqualTo(2);
+        assertThat(single.getInsert()).isEqualTo(2);
+        assertThat(single.getUpdate()).isEqualTo(2);
+        assertThat(single.getTotal()).isEqualTo(6);
+        assertThat(batched.getTotal()).isEqualTo(5 + 5);
+    }
+
+    @Test
+    void sessionRewardIsOneStatsUpdateAndBatchedInserts() {
+        PomodoroSession session = runningSessions(1).get(0);
+        pomodoroService.completeSessions(byId(List.of(session)));
+
+        QueryCount grant = countQueries(() -> assertThat(rewardService.grantSessionRewards(
+                session.getUser().getId(), session.getId(), session.getDurationMinutes(), session.getStartTime()))
+                .isTrue());
+
+        // Pending reward claimed, stats locked, today's XP checked, unlocked achievements loaded;
+        // then one UPDATE of user_stats and one batch each for xp_transactions and user_achievements
+        assertThat(grant.getDelete()).isEqualTo(1);
+        assertThat(grant.getSelect()).isEqualTo(3);
+        assertThat(grant.getUpdate()).isEqualTo(1);
+        assertThat(grant.getInsert()).isEqualTo(2);
+        assertThat(grant.getTotal()).isEqualTo(7);
+    }
+
+    @Test
+    void grantedRewardIsNotGrantedAgain() {
+        PomodoroSession session = runningSessions(1).get(0);
+        pomodoroService.completeSessions(byId(List.of(session)));
+        rewardService.grantSessionRewards(session.getUser().getId(), session.getId(),
+                session.getDurationMinutes(), session.getStartTime());
+
+        QueryCount again = countQueries(() -> assertThat(rewardService.grantSessionRewards(
+                session.getUser().getId(), session.getId(), session.getDurationMinutes(), session.getStartTime()))
+                .isFalse());
+
+        assertThat(again.getTotal()).isEqualTo(1);
+    }
+
+    private List<PomodoroSession> runningSessions(int count) {
+        List<PomodoroSession> sessions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int n = NEXT_USER.incrementAndGet();
+            User user = userService.getOrCreateUser("10000" + n, "user" + n);
+            statsService.getOrCreateUserStats(user);
+            sessions.add(sessionRepository.save(PomodoroSession.builder()
+                    .user(user)
+                    .sessionType(SessionType.FOCUS)
+                    .durationMinutes(25)
+                    .startTime(Instant.now().minus(25, ChronoUnit.MINUTES))
+                    .build()));
+        }
+        return sessions;
+    }
+
+    private Map<Long, String> byId(List<PomodoroSession> sessions) {
+        Map<Long, String> byId = new LinkedHashMap<>();
+        sessions.forEach(session -> byId.put(session.getId(), session.getUser().getDiscordId()));
+        return byId;
+    }
+}